@@ -1,12 +1,24 @@
 package com.ensa.aop.logging;
 
+import com.ensa.config.ApplicationProperties;
+import com.ensa.service.IdempotencyService;
+import com.ensa.service.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
@@ -14,17 +26,45 @@ import org.springframework.core.env.Profiles;
 import tech.jhipster.config.JHipsterConstants;
 
 /**
- * Aspect for logging execution of service and repository Spring components.
- *
- * By default, it only runs with the "dev" profile.
+ * Aspect for timing and logging execution of service, repository and Web REST Spring components.
+ * <p>
+ * Every call is timed in a {@value #TIMER_NAME} timer, tagged with the class and name of the method and the exception
+ * it threw, if any. The calls slower than {@code slowCallThreshold} are logged as warnings, without their arguments;
+ * a {@code sampleRate} share of the others are logged at debug level, with their arguments and result unless they are
+ * {@link #UNLOGGED_VALUES secret}. The logger and timer of a method are looked up once, on its first call.
+ * <p>
+ * It runs unless {@code application.method-timing.enabled} is {@code false}, see {@code LoggingAspectConfiguration}.
  */
 @Aspect
 public class LoggingAspect {
 
+    public static final String TIMER_NAME = "method.timed";
+
+    /**
+     * Length beyond which the arguments and results logged are cut.
+     */
+    static final int MAX_LOGGED_LENGTH = 1000;
+
+    /**
+     * Classes whose arguments and results are never logged: bearer tokens, idempotency keys and recorded responses.
+     */
+    private static final Set<Class<?>> UNLOGGED_VALUES = Set.of(TokenRevocationService.class, IdempotencyService.class);
+
     private final Environment env;
 
-    public LoggingAspect(Environment env) {
+    private final MeterRegistry meterRegistry;
+
+    private final double sampleRate;
+
+    private final long slowCallThreshold;
+
+    private final ConcurrentMap<Method, TimedMethod> timedMethods = new ConcurrentHashMap<>();
+
+    public LoggingAspect(Environment env, ApplicationProperties.MethodTiming properties, MeterRegistry meterRegistry) {
         this.env = env;
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = properties.getSampleRate();
+        this.slowCallThreshold = properties.getSlowCallThreshold().toNanos();
     }
 
     /**
@@ -48,13 +88,18 @@ public class LoggingAspect {
     }
 
     /**
-     * Retrieves the {@link Logger} associated to the given {@link JoinPoint}.
+     * Retrieves the logger and timer of the method of the given {@link JoinPoint}, created on its first call.
      *
-     * @param joinPoint join point we want the logger for.
-     * @return {@link Logger} associated to the given {@link JoinPoint}.
+     * @param joinPoint join point we want the method for.
+     * @return {@link TimedMethod} of the method of the given {@link JoinPoint}.
      */
-    private Logger logger(JoinPoint joinPoint) {
-        return LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringTypeName());
+    private TimedMethod timedMethod(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        TimedMethod timedMethod = timedMethods.get(method);
+        if (timedMethod == null) {
+            timedMethod = timedMethods.computeIfAbsent(method, TimedMethod::new);
+        }
+        return timedMethod;
     }
 
     /**
@@ -65,47 +110,119 @@ public class LoggingAspect {
      */
     @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut()", throwing = "e")
     public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
+        TimedMethod method = timedMethod(joinPoint);
         if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
-            logger(joinPoint)
-                .error(
-                    "Exception in {}() with cause = '{}' and exception = '{}'",
-                    joinPoint.getSignature().getName(),
-                    e.getCause() != null ? e.getCause() : "NULL",
-                    e.getMessage(),
-                    e
-                );
+            method.log.error(
+                "Exception in {}() with cause = '{}' and exception = '{}'",
+                method.name,
+                e.getCause() != null ? e.getCause() : "NULL",
+                e.getMessage(),
+                e
+            );
         } else {
-            logger(joinPoint)
-                .error(
-                    "Exception in {}() with cause = {}",
-                    joinPoint.getSignature().getName(),
-                    e.getCause() != null ? e.getCause() : "NULL"
-                );
+            method.log.error("Exception in {}() with cause = {}", method.name, e.getCause() != null ? e.getCause() : "NULL");
         }
     }
 
     /**
-     * Advice that logs when a method is entered and exited.
+     * Advice that times a method, and logs it when it is slow or sampled.
      *
      * @param joinPoint join point for advice.
      * @return result.
-     * @throws Throwable throws {@link IllegalArgumentException}.
+     * @throws Throwable throws what the method throws.
      */
     @Around("applicationPackagePointcut() && springBeanPointcut()")
-    public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        Logger log = logger(joinPoint);
-        if (log.isDebugEnabled()) {
-            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
-        }
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        TimedMethod method = timedMethod(joinPoint);
+        long start = System.nanoTime();
+        Object result;
         try {
-            Object result = joinPoint.proceed();
-            if (log.isDebugEnabled()) {
-                log.debug("Exit: {}() with result = {}", joinPoint.getSignature().getName(), result);
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            method.failed(e).record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed >= slowCallThreshold) {
+                logSlowCall(method, elapsed);
+            }
+            if (e instanceof IllegalArgumentException) {
+                method.log.error("Illegal argument: {} in {}()", method.render(joinPoint.getArgs()), method.name);
             }
-            return result;
-        } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
             throw e;
         }
+        long elapsed = System.nanoTime() - start;
+        method.timer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (elapsed >= slowCallThreshold) {
+            logSlowCall(method, elapsed);
+        } else if (sampleRate > 0 && method.log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            method.log.debug(
+                "{}() took {} ms with argument[s] = {} and result = {}",
+                method.name,
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                method.render(joinPoint.getArgs()),
+                method.render(result)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Logs a slow call without its arguments: the warnings are logged in production.
+     */
+    private void logSlowCall(TimedMethod method, long elapsed) {
+        method.log.warn("Slow call, {}() took {} ms", method.name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * @return the value as logged: its {@code toString()}, cut at {@link #MAX_LOGGED_LENGTH}.
+     */
+    static String render(Object value) {
+        String rendered = value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+        return rendered.length() <= MAX_LOGGED_LENGTH ? rendered : rendered.substring(0, MAX_LOGGED_LENGTH) + "...";
+    }
+
+    /**
+     * The logger and timer of an advised method.
+     */
+    private final class TimedMethod {
+
+        private final Logger log;
+
+        private final String name;
+
+        private final Timer timer;
+
+        private final boolean logsValues;
+
+        private TimedMethod(Method method) {
+            String className = method.getDeclaringClass().getName();
+            this.log = LoggerFactory.getLogger(className);
+            this.name = method.getName();
+            this.timer = timer(className, "none");
+            this.logsValues = !UNLOGGED_VALUES.contains(method.getDeclaringClass());
+        }
+
+        /**
+         * @return the argument or result as logged, hidden if the method handles secrets.
+         */
+        private String render(Object value) {
+            return logsValues ? LoggingAspect.render(value) : "<hidden>";
+        }
+
+        /**
+         * @return the timer of the calls that threw an exception of the class of the given one.
+         */
+        private Timer failed(Throwable e) {
+            return timer(log.getName(), e.getClass().getSimpleName());
+        }
+
+        private Timer timer(String className, String exception) {
+            return Timer
+                .builder(TIMER_NAME)
+                .description("Time taken by the calls to the repository, service and REST methods")
+                .tag("class", className)
+                .tag("method", name)
+                .tag("exception", exception)
+                .register(meterRegistry);
+        }
     }
 }
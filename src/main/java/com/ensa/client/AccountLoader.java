@@ -0,0 +1,102 @@
+package com.ensa.client;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.service.dto.AccountDTO;
+import com.ensa.web.rest.proxy.AccountProxy;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batches the {@link AccountProxy} lookups made while serving pages of walets, so that a page costs one call to the
+ * account service instead of one per walet.
+ * <p>
+ * Batches hold up to {@code application.account-api.batch-size} ids and wait {@code application.account-api.batch-window}
+ * for more of them; concurrent lookups of the same id share one fetch. See {@link BatchLoader}.
+ */
+@Component
+public class AccountLoader {
+
+    private final BatchLoader<Long, AccountDTO> accounts;
+
+    private final BatchLoader<Long, List<AccountDTO>> accountsByClient;
+
+    public AccountLoader(
+        AccountProxy accountProxy,
+        ApplicationProperties applicationProperties,
+        TaskScheduler taskScheduler,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.AccountApi accountApi = applicationProperties.getAccountApi();
+        this.accounts =
+            new BatchLoader<>(
+                "accounts",
+                ids -> accountProxy.getAccounts(ids).stream().collect(Collectors.toMap(AccountDTO::getId, Function.identity())),
+                accountApi.getBatchSize(),
+                accountApi.getBatchWindow(),
+                taskScheduler,
+                taskExecutor,
+                meterRegistry
+            );
+        this.accountsByClient =
+            new BatchLoader<>(
+                "accounts-by-client",
+                clientIds -> groupByClient(clientIds, accountProxy.getAccountsByClients(clientIds)),
+                accountApi.getBatchSize(),
+                accountApi.getBatchWindow(),
+                taskScheduler,
+                taskExecutor,
+                meterRegistry
+            );
+    }
+
+    /**
+     * @return the future account with this id, {@code null} if there is none.
+     */
+    public CompletableFuture<AccountDTO> getAccount(Long id) {
+        return accounts.load(id);
+    }
+
+    /**
+     * @return the accounts with these ids, by id; ids without an account map to {@code null}.
+     */
+    public Map<Long, AccountDTO> getAccounts(Collection<Long> ids) {
+        return accounts.loadAll(ids);
+    }
+
+    /**
+     * @return the future accounts of this client.
+     */
+    public CompletableFuture<List<AccountDTO>> getAccountsByClient(Long clientId) {
+        return accountsByClient.load(clientId);
+    }
+
+    /**
+     * @return the accounts of these clients, by client id.
+     */
+    public Map<Long, List<AccountDTO>> getAccountsByClients(Collection<Long> clientIds) {
+        return accountsByClient.loadAll(clientIds);
+    }
+
+    /**
+     * @return the accounts by client id, with an empty list for the clients without accounts.
+     */
+    static Map<Long, List<AccountDTO>> groupByClient(List<Long> clientIds, List<AccountDTO> accounts) {
+        Map<Long, List<AccountDTO>> accountsByClient = new HashMap<>(
+            accounts.stream().collect(Collectors.groupingBy(AccountDTO::getClientId))
+        );
+        // A client without accounts has an empty list, like with AccountProxy#getAccountsByClient
+        clientIds.forEach(clientId -> accountsByClient.putIfAbsent(clientId, List.of()));
+        return accountsByClient;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ensa.client;
+
+/**
+ * Thrown when the account service could not be called: it failed, it was too slow, its circuit breaker is open, or its
+ * bulkhead is full.
+ */
+public class AccountServiceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AccountServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,283 @@
+package com.ensa.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Coalesces single-key lookups into bulk calls, in the manner of a DataLoader.
+ * <p>
+ * A key passed to {@link #load} joins the pending batch, which is sent when it reaches {@code maxBatchSize} keys or
+ * {@code window} after its first key, whichever comes first. {@link #loadAll} sends its keys at once instead, together
+ * with whatever is pending. A key already pending or being fetched is not asked for again: its callers share the same
+ * future. Nothing is cached once a batch has been answered.
+ * <p>
+ * Keys are batched per authentication of their callers, and a batch is fetched with that authentication, whichever
+ * thread sends it, so that {@link UserFeignClientInterceptor} forwards their token: the keys of different users are
+ * neither sent nor shared together.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class BatchLoader<K, V> {
+
+    private final Logger log = LoggerFactory.getLogger(BatchLoader.class);
+
+    private final String name;
+
+    private final Function<List<K>, Map<K, V>> batchFunction;
+
+    private final int maxBatchSize;
+
+    private final Duration window;
+
+    private final TaskScheduler scheduler;
+
+    private final Executor executor;
+
+    private final ConcurrentMap<Map.Entry<Authentication, K>, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private final Map<Authentication, Batch> pending = new HashMap<>();
+
+    private final AtomicLong requestedKeys = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final Counter coalescedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer batchTimer;
+
+    /**
+     * @param name the name of the loader, used as the {@code loader} tag of its meters.
+     * @param batchFunction the bulk call; keys it has no value for are loaded as {@code null}.
+     * @param maxBatchSize the maximum number of keys of a bulk call.
+     * @param window the time the first key of a batch waits for others to join it.
+     * @param scheduler the scheduler sending the batches whose window has elapsed.
+     * @param executor the executor making the bulk calls of the batches sent by {@link #load}.
+     * @param meterRegistry the registry of the loader's meters.
+     */
+    public BatchLoader(
+        String name,
+        Function<List<K>, Map<K, V>> batchFunction,
+        int maxBatchSize,
+        Duration window,
+        TaskScheduler scheduler,
+        Executor executor,
+        MeterRegistry meterRegistry
+    ) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        FunctionCounter
+            .builder("client.batch.requested", requestedKeys, AtomicLong::get)
+            .description("Keys asked for to the batch loader")
+            .tag("loader", name)
+            .register(meterRegistry);
+        this.coalescedCounter =
+            Counter
+                .builder("client.batch.coalesced")
+                .description("Keys asked for while already pending or being fetched, which did not need a lookup of their own")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.batchSizeSummary =
+            DistributionSummary
+                .builder("client.batch.size")
+                .description("Number of keys per bulk call")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.batchTimer =
+            Timer.builder("client.batch.calls").description("Time taken by the bulk calls").tag("loader", name).register(meterRegistry);
+        Gauge
+            .builder("client.batch.ratio", this, BatchLoader::getBatchRatio)
+            .description("Keys asked for per bulk call since startup; the number of remote calls saved by the loader")
+            .tag("loader", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Loads the value of a key as part of the next batch.
+     *
+     * @param key the key to load.
+     * @return the future value, {@code null} if the bulk call had none for the key.
+     */
+    public CompletableFuture<V> load(K key) {
+        requestedKeys.incrementAndGet();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> current = inFlight.putIfAbsent(new SimpleImmutableEntry<>(authentication, key), future);
+        if (current != null) {
+            coalescedCounter.increment();
+            return current;
+        }
+        Batch batch = enqueue(authentication, key);
+        if (batch != null) {
+            dispatch(batch, executor);
+        }
+        return future;
+    }
+
+    /**
+     * Loads the values of several keys, sending them without waiting for the window.
+     *
+     * @param keys the keys to load.
+     * @return the values by key, in the order of {@code keys}; a key the bulk call had no value for maps to {@code null}.
+     */
+    public Map<K, V> loadAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.computeIfAbsent(key, this::load);
+        }
+        Batch batch = drain(SecurityContextHolder.getContext().getAuthentication());
+        if (batch != null) {
+            // The caller waits for these keys anyway, so it makes the call itself
+            dispatch(batch, Runnable::run);
+        }
+        Map<K, V> values = new LinkedHashMap<>();
+        try {
+            futures.forEach((key, future) -> values.put(key, future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of keys asked for per bulk call since startup.
+     */
+    public double getBatchRatio() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) requestedKeys.get() / count;
+    }
+
+    private Batch enqueue(Authentication authentication, K key) {
+        synchronized (lock) {
+            Batch batch = pending.computeIfAbsent(authentication, Batch::new);
+            batch.keys.add(key);
+            if (batch.keys.size() >= maxBatchSize) {
+                return drain(batch.authentication);
+            }
+            if (batch.scheduledDispatch == null) {
+                batch.scheduledDispatch = scheduler.schedule(() -> dispatchPending(batch), Instant.now().plus(window));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the pending batch of the authentication, {@code null} if there is none.
+     */
+    private Batch drain(Authentication authentication) {
+        synchronized (lock) {
+            Batch batch = pending.remove(authentication);
+            if (batch != null && batch.scheduledDispatch != null) {
+                batch.scheduledDispatch.cancel(false);
+            }
+            return batch;
+        }
+    }
+
+    private void dispatchPending(Batch batch) {
+        synchronized (lock) {
+            if (!pending.remove(batch.authentication, batch)) {
+                // Already sent, full or by loadAll
+                return;
+            }
+        }
+        dispatch(batch, executor);
+    }
+
+    private void dispatch(Batch batch, Executor executor) {
+        try {
+            executor.execute(new DelegatingSecurityContextRunnable(() -> fetch(batch), batch.context));
+        } catch (RuntimeException e) {
+            complete(batch, null, e);
+        }
+    }
+
+    private void fetch(Batch batch) {
+        batches.incrementAndGet();
+        batchSizeSummary.record(batch.keys.size());
+        Map<K, V> values;
+        try {
+            values = batchTimer.record(() -> batchFunction.apply(batch.keys));
+        } catch (RuntimeException e) {
+            log.debug("Bulk call of the {} loader failed for {} keys: {}", name, batch.keys.size(), e.getMessage());
+            complete(batch, null, e);
+            return;
+        }
+        complete(batch, values, null);
+    }
+
+    private void complete(Batch batch, Map<K, V> values, RuntimeException failure) {
+        for (K key : batch.keys) {
+            // Removed first, so that a key asked for from now on is fetched again
+            CompletableFuture<V> future = inFlight.remove(new SimpleImmutableEntry<>(batch.authentication, key));
+            if (future == null) {
+                continue;
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(values == null ? null : values.get(key));
+            }
+        }
+    }
+
+    /**
+     * The keys asked for by the callers with the same authentication, sent in a security context of their own, as the
+     * one of a caller may change once it has been captured.
+     */
+    private final class Batch {
+
+        private final Authentication authentication;
+
+        private final SecurityContext context;
+
+        private final List<K> keys = new ArrayList<>();
+
+        private ScheduledFuture<?> scheduledDispatch;
+
+        private Batch(Authentication authentication) {
+            this.authentication = authentication;
+            this.context = SecurityContextHolder.createEmptyContext();
+            this.context.setAuthentication(authentication);
+        }
+    }
+}
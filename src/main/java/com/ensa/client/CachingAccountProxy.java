@@ -0,0 +1,141 @@
+package com.ensa.client;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.service.dto.AccountDTO;
+import com.ensa.web.rest.proxy.AccountProxy;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@link AccountProxy} the application uses: it serves the responses of the account service from
+ * {@link StaleWhileRevalidateCache}s, so that most lookups do not wait for the remote service, and keep being answered
+ * while it fails.
+ * <p>
+ * Each lookup method has its cache, configured under {@code application.account-api.cache}; a bulk method shares the
+ * cache of its single-key variant, and only fetches the keys missing from it. Refreshes run on the {@code taskExecutor}.
+ * Unlike the Feign client, {@link #getAccount} returns {@code null} for an unknown account.
+ * <p>
+ * This is also the fallback of the circuit breakers of the Feign client: when a call fails, times out, or is rejected by
+ * its circuit breaker or bulkhead, the last known response is served. Without one, the failure is thrown as an
+ * {@link AccountServiceUnavailableException}, except for the errors of the client ({@code 4xx}), which are rethrown as
+ * they are.
+ */
+@Component
+@Primary
+public class CachingAccountProxy implements AccountProxy {
+
+    public static final String ACCOUNT_CACHE = "account";
+
+    public static final String ACCOUNTS_BY_CLIENT_CACHE = "accounts-by-client";
+
+    private final AccountProxy accountProxy;
+
+    private final StaleWhileRevalidateCache<Long, AccountDTO> accounts;
+
+    private final StaleWhileRevalidateCache<Long, List<AccountDTO>> accountsByClient;
+
+    public CachingAccountProxy(
+        @Qualifier(AccountProxy.FEIGN_CLIENT) AccountProxy accountProxy,
+        ApplicationProperties applicationProperties,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        this.accountProxy = accountProxy;
+        this.accounts = createCache(ACCOUNT_CACHE, applicationProperties, taskExecutor, meterRegistry);
+        this.accountsByClient = createCache(ACCOUNTS_BY_CLIENT_CACHE, applicationProperties, taskExecutor, meterRegistry);
+    }
+
+    private static <V> StaleWhileRevalidateCache<Long, V> createCache(
+        String name,
+        ApplicationProperties applicationProperties,
+        Executor taskExecutor,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.AccountApi.ResponseCache cache = applicationProperties
+            .getAccountApi()
+            .getCache()
+            .getOrDefault(name, new ApplicationProperties.AccountApi.ResponseCache());
+        return new StaleWhileRevalidateCache<>(
+            name,
+            cache.getTimeToLive(),
+            cache.getStaleTimeToLive(),
+            cache.getMaxEntries(),
+            taskExecutor,
+            meterRegistry
+        );
+    }
+
+    @Override
+    public AccountDTO getAccount(Long id) {
+        return accounts.get(id, key -> call(() -> fetchAccount(key)));
+    }
+
+    @Override
+    public List<AccountDTO> getAccountsByClient(Long clientId) {
+        return accountsByClient.get(clientId, key -> call(() -> accountProxy.getAccountsByClient(key)));
+    }
+
+    @Override
+    public List<AccountDTO> getAccounts(Collection<Long> ids) {
+        return new ArrayList<>(
+            accounts
+                .getAll(
+                    ids,
+                    missing ->
+                        call(() -> accountProxy.getAccounts(missing))
+                            .stream()
+                            .collect(Collectors.toMap(AccountDTO::getId, Function.identity()))
+                )
+                .values()
+        );
+    }
+
+    @Override
+    public List<AccountDTO> getAccountsByClients(Collection<Long> clientIds) {
+        return accountsByClient
+            .getAll(clientIds, missing -> AccountLoader.groupByClient(missing, call(() -> accountProxy.getAccountsByClients(missing))))
+            .values()
+            .stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    private static <T> T call(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (NoFallbackAvailableException e) {
+            if (e.getCause() instanceof FeignException.FeignClientException) {
+                throw (FeignException.FeignClientException) e.getCause();
+            }
+            throw new AccountServiceUnavailableException("The account service is unavailable", e.getCause());
+        }
+    }
+
+    /**
+     * Fetches an account, {@code null} if the account service does not know it: its {@code 404} reaches here wrapped by
+     * the circuit breaker, which has no fallback for the errors of the client.
+     */
+    private AccountDTO fetchAccount(Long id) {
+        try {
+            return accountProxy.getAccount(id);
+        } catch (FeignException.NotFound e) {
+            return null;
+        } catch (NoFallbackAvailableException e) {
+            if (e.getCause() instanceof FeignException.NotFound) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
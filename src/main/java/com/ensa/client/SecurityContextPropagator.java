@@ -0,0 +1,30 @@
+package com.ensa.client;
+
+import io.github.resilience4j.core.ContextPropagator;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Hands the security context of the caller to the bulkhead threads the Feign calls run on, so that
+ * {@link UserFeignClientInterceptor} still forwards the caller's token.
+ */
+public class SecurityContextPropagator implements ContextPropagator<SecurityContext> {
+
+    @Override
+    public Supplier<Optional<SecurityContext>> retrieve() {
+        return () -> Optional.of(SecurityContextHolder.getContext());
+    }
+
+    @Override
+    public Consumer<Optional<SecurityContext>> copy() {
+        return context -> context.ifPresent(SecurityContextHolder::setContext);
+    }
+
+    @Override
+    public Consumer<Optional<SecurityContext>> clear() {
+        return context -> SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,285 @@
+package com.ensa.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+/**
+ * A cache of remote responses, serving stale entries while they are refreshed in the background.
+ * <p>
+ * An entry is fresh for {@code timeToLive} after it was fetched, then stale for {@code staleTimeToLive}: a stale entry
+ * is served at once, and refreshed on the executor with the security context of the caller. Past that, the entry is
+ * fetched again before being served. A key is never fetched twice at the same time: callers wanting a key that is
+ * already being fetched wait for that fetch. When a fetch fails, the entry it was replacing, however old, is served
+ * instead, and the failure only surfaces for keys that have no entry; when it succeeds without a value for a key, the
+ * entry of the key is dropped.
+ * <p>
+ * {@code null} values are not cached. The least recently used entries are evicted beyond {@code maxEntries}.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class StaleWhileRevalidateCache<K, V> {
+
+    private final Logger log = LoggerFactory.getLogger(StaleWhileRevalidateCache.class);
+
+    private final String name;
+
+    private final Duration timeToLive;
+
+    private final Duration staleTimeToLive;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final Map<K, Entry<V>> entries;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter freshCounter;
+
+    private final Counter staleCounter;
+
+    private final Counter missCounter;
+
+    private final Counter failureCounter;
+
+    public StaleWhileRevalidateCache(
+        String name,
+        Duration timeToLive,
+        Duration staleTimeToLive,
+        int maxEntries,
+        Executor executor,
+        MeterRegistry meterRegistry
+    ) {
+        this(name, timeToLive, staleTimeToLive, maxEntries, executor, meterRegistry, Clock.systemUTC());
+    }
+
+    StaleWhileRevalidateCache(
+        String name,
+        Duration timeToLive,
+        Duration staleTimeToLive,
+        int maxEntries,
+        Executor executor,
+        MeterRegistry meterRegistry,
+        Clock clock
+    ) {
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.staleTimeToLive = staleTimeToLive;
+        this.executor = executor;
+        this.clock = clock;
+        this.entries =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        this.freshCounter = getCounter(meterRegistry, "fresh");
+        this.staleCounter = getCounter(meterRegistry, "stale");
+        this.missCounter = getCounter(meterRegistry, "miss");
+        this.failureCounter =
+            Counter
+                .builder("client.cache.fetch.failures")
+                .description("Fetches that failed, whose stale entry was served instead when there was one")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private Counter getCounter(MeterRegistry meterRegistry, String result) {
+        return Counter
+            .builder("client.cache.gets")
+            .description("Lookups in the response cache, by freshness of the entry found")
+            .tag("cache", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Gets the value of a key, fetching it when needed.
+     *
+     * @param key the key.
+     * @param fetch the remote call fetching the value of the key.
+     * @return the value, possibly stale; {@code null} if there is none.
+     */
+    public V get(K key, Function<K, V> fetch) {
+        return getAll(
+            List.of(key),
+            keys -> {
+                V value = fetch.apply(key);
+                return value == null ? Map.of() : Map.of(key, value);
+            }
+        )
+            .get(key);
+    }
+
+    /**
+     * Gets the values of several keys, fetching the missing ones with a single call.
+     *
+     * @param keys the keys.
+     * @param fetch the remote call fetching the values of some keys; it may leave out keys without value.
+     * @return the values by key, possibly stale; keys without value are left out.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> fetch) {
+        Instant now = clock.instant();
+        Map<K, V> values = new LinkedHashMap<>();
+        Map<K, Entry<V>> expired = new LinkedHashMap<>();
+        List<K> stale = new ArrayList<>();
+        synchronized (entries) {
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry == null || !now.isBefore(entry.fetched.plus(timeToLive).plus(staleTimeToLive))) {
+                    expired.put(key, entry);
+                    continue;
+                }
+                values.put(key, entry.value);
+                if (!now.isBefore(entry.fetched.plus(timeToLive))) {
+                    stale.add(key);
+                }
+            }
+        }
+        freshCounter.increment(values.size() - stale.size());
+        staleCounter.increment(stale.size());
+        missCounter.increment(expired.size());
+
+        if (!stale.isEmpty()) {
+            Map<K, CompletableFuture<V>> refreshes = claim(stale);
+            if (!refreshes.isEmpty()) {
+                try {
+                    // With the security context of the caller, for the remote call to be made on its behalf
+                    executor.execute(new DelegatingSecurityContextRunnable(() -> fetchAndComplete(refreshes, fetch)));
+                } catch (RuntimeException e) {
+                    log.debug("Could not refresh {} stale entries of the {} cache: {}", refreshes.size(), name, e.getMessage());
+                    refreshes.forEach((key, future) -> settle(key, future, null));
+                }
+            }
+        }
+        if (!expired.isEmpty()) {
+            Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>(inFlight(expired.keySet()));
+            Map<K, CompletableFuture<V>> claimed = claim(expired.keySet());
+            futures.putAll(claimed);
+            if (!claimed.isEmpty()) {
+                fetchAndComplete(claimed, fetch);
+            }
+            futures.forEach((key, future) -> {
+                V value = join(future, expired.get(key));
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+        }
+        return values;
+    }
+
+    /**
+     * Evicts a key, so that it is fetched again on its next lookup.
+     */
+    public void evict(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    private Map<K, CompletableFuture<V>> inFlight(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = inFlight.get(key);
+            if (future != null) {
+                futures.put(key, future);
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Claims the keys that no one is fetching yet; the caller must then settle each claimed future.
+     */
+    private Map<K, CompletableFuture<V>> claim(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, future) == null) {
+                claimed.put(key, future);
+            }
+        }
+        return claimed;
+    }
+
+    private void fetchAndComplete(Map<K, CompletableFuture<V>> claimed, Function<List<K>, Map<K, V>> fetch) {
+        Map<K, V> fetched;
+        try {
+            fetched = fetch.apply(new ArrayList<>(claimed.keySet()));
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.debug("Could not fetch {} entries of the {} cache: {}", claimed.size(), name, e.getMessage());
+            claimed.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(e);
+            });
+            return;
+        }
+        Instant now = clock.instant();
+        synchronized (entries) {
+            for (K key : claimed.keySet()) {
+                V value = fetched.get(key);
+                if (value != null) {
+                    entries.put(key, new Entry<>(value, now));
+                } else {
+                    // The remote answered that there is no value: forget the one we had
+                    entries.remove(key);
+                }
+            }
+        }
+        claimed.forEach((key, future) -> settle(key, future, fetched.get(key)));
+    }
+
+    private void settle(K key, CompletableFuture<V> future, V value) {
+        inFlight.remove(key, future);
+        future.complete(value);
+    }
+
+    private V join(CompletableFuture<V> future, Entry<V> previous) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (previous != null) {
+                log.debug("Serving an expired entry of the {} cache, as fetching it failed", name);
+                return previous.value;
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final Instant fetched;
+
+        Entry(V value, Instant fetched) {
+            this.value = value;
+            this.fetched = fetched;
+        }
+    }
+}
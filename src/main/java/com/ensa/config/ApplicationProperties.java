@@ -1,6 +1,13 @@
 package com.ensa.config;
 
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Walet Api.
@@ -9,4 +16,1049 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Ledger ledger = new Ledger();
+
+    private final Transfer transfer = new Transfer();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Jwt jwt = new Jwt();
+
+    private final Cache cache = new Cache();
+
+    private final HttpClient httpClient = new HttpClient();
+
+    private final AccountApi accountApi = new AccountApi();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    private final ReadReplica readReplica = new ReadReplica();
+
+    private final Sql sql = new Sql();
+
+    private final HotKeys hotKeys = new HotKeys();
+
+    private final MethodTiming methodTiming = new MethodTiming();
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Jwt getJwt() {
+        return jwt;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public AccountApi getAccountApi() {
+        return accountApi;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public ReadReplica getReadReplica() {
+        return readReplica;
+    }
+
+    public Sql getSql() {
+        return sql;
+    }
+
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    public MethodTiming getMethodTiming() {
+        return methodTiming;
+    }
+
+    public static class Ledger {
+
+        /**
+         * Number of entries posted to a walet after which a new balance snapshot is written for it.
+         */
+        private int snapshotInterval = 100;
+
+        public int getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(int snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+    }
+
+    public static class Transfer {
+
+        /**
+         * Number of in-JVM locks the walets are spread over; transfers on walets of different stripes never wait on each other.
+         */
+        private int lockStripes = 1024;
+
+        /**
+         * Maximum time a transfer waits for the locks of its walets before being rejected.
+         */
+        private Duration lockTimeout = Duration.ofSeconds(5);
+
+        public int getLockStripes() {
+            return lockStripes;
+        }
+
+        public void setLockStripes(int lockStripes) {
+            this.lockStripes = lockStripes;
+        }
+
+        public Duration getLockTimeout() {
+            return lockTimeout;
+        }
+
+        public void setLockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Maximum number of recorded responses kept in memory; the least recently used ones are evicted first.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * How long the response to a request with an {@code Idempotency-Key} is replayed to retries.
+         */
+        private Duration timeToLive = Duration.ofHours(24);
+
+        /**
+         * How long a key stays claimed by a request that has not completed, after which it can be claimed again.
+         */
+        private Duration leaseTime = Duration.ofMinutes(1);
+
+        /**
+         * Maximum time a duplicate waits for the request in flight with the same key on this instance before getting a 409.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(Duration leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+
+    public static class Jwt {
+
+        /**
+         * Maximum number of verified tokens remembered, so that a token presented again skips signature verification; 0 disables the cache.
+         */
+        private int tokenCacheSize = 10_000;
+
+        private final Jwks jwks = new Jwks();
+
+        private final Revocation revocation = new Revocation();
+
+        public int getTokenCacheSize() {
+            return tokenCacheSize;
+        }
+
+        public void setTokenCacheSize(int tokenCacheSize) {
+            this.tokenCacheSize = tokenCacheSize;
+        }
+
+        public Jwks getJwks() {
+            return jwks;
+        }
+
+        public Revocation getRevocation() {
+            return revocation;
+        }
+
+        public static class Revocation {
+
+            /**
+             * Number of unexpired revoked tokens the Bloom filter in front of them is sized for; it grows past it.
+             */
+            private int expectedRevocations = 10_000;
+
+            /**
+             * How often the tokens revoked through the other instances are loaded from the database.
+             */
+            private Duration syncInterval = Duration.ofSeconds(10);
+
+            public int getExpectedRevocations() {
+                return expectedRevocations;
+            }
+
+            public void setExpectedRevocations(int expectedRevocations) {
+                this.expectedRevocations = expectedRevocations;
+            }
+
+            public Duration getSyncInterval() {
+                return syncInterval;
+            }
+
+            public void setSyncInterval(Duration syncInterval) {
+                this.syncInterval = syncInterval;
+            }
+        }
+
+        public static class Jwks {
+
+            /**
+             * File or URL of the JSON Web Key Set verifying the RS256 and ES256 tokens, by {@code kid}; none if not set.
+             */
+            private String location;
+
+            /**
+             * Whether the HS512 tokens signed with {@code jhipster.security.authentication.jwt.base64-secret}, as issued by
+             * this service, are still accepted.
+             */
+            private boolean acceptSharedSecret = true;
+
+            /**
+             * Age after which the key set is loaded again, in the background.
+             */
+            private Duration refreshInterval = Duration.ofMinutes(10);
+
+            /**
+             * Minimum time between two loads of the key set triggered by tokens with an unknown {@code kid}.
+             */
+            private Duration minRefreshInterval = Duration.ofSeconds(30);
+
+            /**
+             * Connect and read timeout of the key set URL.
+             */
+            private Duration timeout = Duration.ofSeconds(5);
+
+            public String getLocation() {
+                return location;
+            }
+
+            public void setLocation(String location) {
+                this.location = location;
+            }
+
+            public boolean isAcceptSharedSecret() {
+                return acceptSharedSecret;
+            }
+
+            public void setAcceptSharedSecret(boolean acceptSharedSecret) {
+                this.acceptSharedSecret = acceptSharedSecret;
+            }
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public Duration getMinRefreshInterval() {
+                return minRefreshInterval;
+            }
+
+            public void setMinRefreshInterval(Duration minRefreshInterval) {
+                this.minRefreshInterval = minRefreshInterval;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Directory of the persistent disk tier; the regions with a {@code disk-size} require it.
+         */
+        private String diskPath;
+
+        /**
+         * Tiers and expiry of each cache region, by region name; the regions not listed here keep the
+         * {@code jhipster.cache.ehcache} defaults.
+         */
+        private final Map<String, Region> regions = new LinkedHashMap<>();
+
+        private final WarmUp warmUp = new WarmUp();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public String getDiskPath() {
+            return diskPath;
+        }
+
+        public void setDiskPath(String diskPath) {
+            this.diskPath = diskPath;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public WarmUp getWarmUp() {
+            return warmUp;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        public static class Region {
+
+            /**
+             * Number of entries kept on heap, ignored when {@code heap-size} is set.
+             */
+            private Long heapEntries;
+
+            /**
+             * Size of the heap tier, for regions sized in bytes rather than in entries.
+             */
+            private DataSize heapSize;
+
+            /**
+             * Size of the off-heap tier, outside of the garbage-collected heap; none if not set.
+             */
+            private DataSize offHeapSize;
+
+            /**
+             * Size of the persistent disk tier, which survives restarts unless the invalidations go through Kafka;
+             * none if not set.
+             */
+            private DataSize diskSize;
+
+            /**
+             * Time after which an entry expires once written; defaults to {@code jhipster.cache.ehcache.time-to-live-seconds}.
+             */
+            private Duration timeToLive;
+
+            /**
+             * Time after which an entry expires once last read, instead of {@code time-to-live}.
+             */
+            private Duration timeToIdle;
+
+            /**
+             * Whether the entries of the hot walets, see {@code application.hot-keys}, are the last to be evicted when
+             * the region is full. For the Walet region, and the regions keyed by walet id.
+             */
+            private boolean pinHotKeys;
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public DataSize getHeapSize() {
+                return heapSize;
+            }
+
+            public void setHeapSize(DataSize heapSize) {
+                this.heapSize = heapSize;
+            }
+
+            public DataSize getOffHeapSize() {
+                return offHeapSize;
+            }
+
+            public void setOffHeapSize(DataSize offHeapSize) {
+                this.offHeapSize = offHeapSize;
+            }
+
+            public DataSize getDiskSize() {
+                return diskSize;
+            }
+
+            public void setDiskSize(DataSize diskSize) {
+                this.diskSize = diskSize;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getTimeToIdle() {
+                return timeToIdle;
+            }
+
+            public void setTimeToIdle(Duration timeToIdle) {
+                this.timeToIdle = timeToIdle;
+            }
+
+            public boolean isPinHotKeys() {
+                return pinHotKeys;
+            }
+
+            public void setPinHotKeys(boolean pinHotKeys) {
+                this.pinHotKeys = pinHotKeys;
+            }
+        }
+
+        public static class WarmUp {
+
+            /**
+             * Whether to load the most used walets into the Walet region before the application reports ready.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Number of walets loaded, those with the most ledger entries over the {@code activity-window} first.
+             */
+            private int maxWalets = 10000;
+
+            /**
+             * Number of walets loaded by each query, the chunks being loaded in parallel on the task executor.
+             */
+            private int chunkSize = 500;
+
+            /**
+             * How far back the ledger entries are counted.
+             */
+            private Duration activityWindow = Duration.ofDays(7);
+
+            /**
+             * Time after which the application reports ready even if the warm-up is not finished.
+             */
+            private Duration timeout = Duration.ofMinutes(2);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxWalets() {
+                return maxWalets;
+            }
+
+            public void setMaxWalets(int maxWalets) {
+                this.maxWalets = maxWalets;
+            }
+
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+
+            public Duration getActivityWindow() {
+                return activityWindow;
+            }
+
+            public void setActivityWindow(Duration activityWindow) {
+                this.activityWindow = activityWindow;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        public static class Invalidation {
+
+            /**
+             * How the keys written by this instance are sent to the others, for them to evict: {@code local} only
+             * delivers them within this JVM, {@code kafka} through the {@code topic}, see {@code spring.kafka}.
+             */
+            private Transport transport = Transport.LOCAL;
+
+            /**
+             * Kafka topic of the invalidations, with a single partition, which every instance is assigned.
+             */
+            private String topic = "waletapi-cache-invalidation";
+
+            public Transport getTransport() {
+                return transport;
+            }
+
+            public void setTransport(Transport transport) {
+                this.transport = transport;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+
+            public enum Transport {
+                LOCAL,
+                KAFKA,
+            }
+        }
+    }
+
+    public static class HttpClient {
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        private Duration writeTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum number of idle connections kept alive in the pool, per client.
+         */
+        private int maxIdleConnections = 50;
+
+        /**
+         * How long an idle connection is kept alive in the pool.
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * Request bodies at least this large are sent gzip-compressed.
+         */
+        private DataSize compressionMinSize = DataSize.ofKilobytes(2);
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public DataSize getCompressionMinSize() {
+            return compressionMinSize;
+        }
+
+        public void setCompressionMinSize(DataSize compressionMinSize) {
+            this.compressionMinSize = compressionMinSize;
+        }
+    }
+
+    public static class AccountApi {
+
+        /**
+         * Base URL of the account service; when empty, it is discovered through the registry.
+         */
+        private String url;
+
+        /**
+         * Maximum number of ids fetched by a single bulk call of {@link com.ensa.client.AccountLoader}.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Time {@link com.ensa.client.AccountLoader} waits for more ids to join a batch before sending it.
+         */
+        private Duration batchWindow = Duration.ofMillis(5);
+
+        /**
+         * Response caches of {@link com.ensa.client.CachingAccountProxy}, by name: {@code account} for the lookups by id,
+         * {@code accounts-by-client} for the lookups by client.
+         */
+        private final Map<String, ResponseCache> cache = new LinkedHashMap<>();
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public Map<String, ResponseCache> getCache() {
+            return cache;
+        }
+
+        public static class ResponseCache {
+
+            /**
+             * Time a response is served from the cache without being refreshed.
+             */
+            private Duration timeToLive = Duration.ofMinutes(1);
+
+            /**
+             * Time a response is still served once stale, while it is refreshed in the background.
+             */
+            private Duration staleTimeToLive = Duration.ofHours(1);
+
+            private int maxEntries = 10_000;
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getStaleTimeToLive() {
+                return staleTimeToLive;
+            }
+
+            public void setStaleTimeToLive(Duration staleTimeToLive) {
+                this.staleTimeToLive = staleTimeToLive;
+            }
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Whether the requests matching a route are limited per client, by {@link com.ensa.web.rest.RateLimitFilter}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time after which the bucket of a client that has stopped sending requests is forgotten, once full again.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Limits by Ant path pattern, like {@code /api/transfers/**}; a request is limited by the first route it matches,
+         * and not at all if it matches none. Each route has its own buckets.
+         */
+        private final Map<String, Route> routes = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Map<String, Route> getRoutes() {
+            return routes;
+        }
+
+        public static class Route {
+
+            /**
+             * HTTP methods of the route; all of them if empty.
+             */
+            private Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+
+            /**
+             * Number of requests a client can send at once, after a pause.
+             */
+            private int capacity = 100;
+
+            /**
+             * Number of requests a client is allowed again every {@code refill-period}, its sustained rate.
+             */
+            private int refillTokens = 50;
+
+            private Duration refillPeriod = Duration.ofSeconds(1);
+
+            public Set<HttpMethod> getMethods() {
+                return methods;
+            }
+
+            public void setMethods(Set<HttpMethod> methods) {
+                this.methods = methods;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getRefillTokens() {
+                return refillTokens;
+            }
+
+            public void setRefillTokens(int refillTokens) {
+                this.refillTokens = refillTokens;
+            }
+
+            public Duration getRefillPeriod() {
+                return refillPeriod;
+            }
+
+            public void setRefillPeriod(Duration refillPeriod) {
+                this.refillPeriod = refillPeriod;
+            }
+        }
+    }
+
+    public static class ConcurrencyLimit {
+
+        /**
+         * Whether the requests to the {@link com.ensa.web.rest.WaletResource} in flight are limited, by
+         * {@link com.ensa.web.rest.ConcurrencyLimitInterceptor}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Limit the requests start with, before it adapts to their latency.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 200;
+
+        /**
+         * Share of the limit only reads can use; writes are refused once the rest of it is taken.
+         */
+        private double readReserve = 0.2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getReadReserve() {
+            return readReserve;
+        }
+
+        public void setReadReserve(double readReserve) {
+            this.readReserve = readReserve;
+        }
+    }
+
+    public static class ReadReplica {
+
+        /**
+         * Time a client's read-only transactions still go to the primary after it has written, for the replica to catch
+         * up; the replica itself is configured under {@code spring.datasource.replica}.
+         */
+        private Duration pinAfterWrite = Duration.ofSeconds(5);
+
+        public Duration getPinAfterWrite() {
+            return pinAfterWrite;
+        }
+
+        public void setPinAfterWrite(Duration pinAfterWrite) {
+            this.pinAfterWrite = pinAfterWrite;
+        }
+    }
+
+    public static class Sql {
+
+        /**
+         * SQL statements taking at least this long are logged, with their number of bind parameters but not their values.
+         */
+        private Duration slowStatementThreshold = Duration.ofSeconds(1);
+
+        /**
+         * Maximum number of statement shapes timed separately, the others being timed together.
+         */
+        private int maxStatementShapes = 500;
+
+        /**
+         * HTTP requests executing more SQL statements than this are logged, as likely N+1 selects.
+         */
+        private int maxStatementsPerRequest = 50;
+
+        public Duration getSlowStatementThreshold() {
+            return slowStatementThreshold;
+        }
+
+        public void setSlowStatementThreshold(Duration slowStatementThreshold) {
+            this.slowStatementThreshold = slowStatementThreshold;
+        }
+
+        public int getMaxStatementShapes() {
+            return maxStatementShapes;
+        }
+
+        public void setMaxStatementShapes(int maxStatementShapes) {
+            this.maxStatementShapes = maxStatementShapes;
+        }
+
+        public int getMaxStatementsPerRequest() {
+            return maxStatementsPerRequest;
+        }
+
+        public void setMaxStatementsPerRequest(int maxStatementsPerRequest) {
+            this.maxStatementsPerRequest = maxStatementsPerRequest;
+        }
+    }
+
+    public static class HotKeys {
+
+        /**
+         * Whether the walet ids looked up and transferred between are counted, see {@code /management/hotkeys}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Share of the walet ids seen that are counted.
+         */
+        private double sampleRate = 0.1;
+
+        /**
+         * Counters per row of the count-min sketch, rounded up to a power of two; the error of a count is about
+         * {@code e / width} of all the ids counted.
+         */
+        private int width = 4096;
+
+        /**
+         * Rows of the count-min sketch, each with its own hash; the error bound holds with a probability of
+         * {@code 1 - e^-depth}.
+         */
+        private int depth = 4;
+
+        /**
+         * Number of hot walets tracked.
+         */
+        private int top = 100;
+
+        /**
+         * Time after which the counts are halved, so that the walets hot lately stand out from those hot once.
+         */
+        private Duration decayInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public int getTop() {
+            return top;
+        }
+
+        public void setTop(int top) {
+            this.top = top;
+        }
+
+        public Duration getDecayInterval() {
+            return decayInterval;
+        }
+
+        public void setDecayInterval(Duration decayInterval) {
+            this.decayInterval = decayInterval;
+        }
+    }
+
+    public static class MethodTiming {
+
+        /**
+         * Whether the repository, service and REST methods are timed, see {@code LoggingAspect}; when disabled, the
+         * beans are not proxied for it.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Share of the calls logged at debug level with their arguments and result, those of the services handling
+         * tokens and idempotency keys being hidden.
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * Duration beyond which a call is logged as slow, without its arguments.
+         */
+        private Duration slowCallThreshold = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+    }
+}
@@ -1,20 +1,67 @@
 package com.ensa.config;
 
+import com.ensa.config.cache.CacheInvalidationBus;
+import com.ensa.config.cache.CacheInvalidationPublisher;
+import com.ensa.config.cache.CacheInvalidationReceiver;
+import com.ensa.config.cache.KafkaCacheInvalidationBus;
+import com.ensa.config.cache.LocalCacheInvalidationBus;
+import com.ensa.management.CacheStatisticsEndpointWebExtension;
+import com.ensa.service.HotWaletTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.File;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.ehcache.config.EvictionAdvisor;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.jcache.JCacheCache;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.context.annotation.*;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.TopicPartitionOffset.SeekPosition;
 import tech.jhipster.config.JHipsterProperties;
 import tech.jhipster.config.cache.PrefixedKeyGenerator;
 
@@ -24,18 +71,28 @@ public class CacheConfiguration {
 
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private HotWaletTracker hotWaletTracker;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cache;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cache = applicationProperties.getCache();
+    }
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
-            );
+    /**
+     * Replaces the cache manager of Spring Boot, which cannot be given the directory of the persistent disk tier.
+     * The {@link JCacheManagerCustomizer}s are applied the same way.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration = cache.getDiskPath() == null
+            ? new DefaultConfiguration(provider.getDefaultClassLoader())
+            : new DefaultConfiguration(provider.getDefaultClassLoader(), new DefaultPersistenceConfiguration(new File(cache.getDiskPath())));
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
     }
 
     @Bean
@@ -47,17 +104,205 @@ public class CacheConfiguration {
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
             createCache(cm, com.ensa.domain.Walet.class.getName());
+            createCache(cm, com.ensa.domain.Walet.class.getName() + "##NaturalId");
+            createCache(cm, com.ensa.web.rest.WaletResource.MISSING_WALETS_CACHE);
             // jhipster-needle-ehcache-add-entry
         };
     }
 
+    /**
+     * Binds the caches with their Ehcache statistics rather than with the JCache ones Spring Boot would bind, which are
+     * read through JMX.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public CacheMeterBinderProvider<JCacheCache> ehcacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            CacheStatistics statistics = EhcacheMetrics.getStatistics(cache.getNativeCache());
+            return statistics != null ? new EhcacheMetrics(statistics, cache.getName(), tags) : null;
+        };
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint(endpoint = CachesEndpoint.class)
+    public CacheStatisticsEndpointWebExtension cachesEndpointWebExtension(
+        CachesEndpoint cachesEndpoint,
+        Map<String, org.springframework.cache.CacheManager> cacheManagers
+    ) {
+        return new CacheStatisticsEndpointWebExtension(cachesEndpoint, cacheManagers);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+    public CacheInvalidationBus localCacheInvalidationBus() {
+        return new LocalCacheInvalidationBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "kafka")
+    public KafkaCacheInvalidationBus kafkaCacheInvalidationBus(
+        KafkaTemplate<String, String> kafkaTemplate,
+        ObjectMapper objectMapper,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        return new KafkaCacheInvalidationBus(kafkaTemplate, objectMapper, cache.getInvalidation().getTopic(), taskExecutor);
+    }
+
+    /**
+     * Reads the invalidations of all the instances from the latest ones: those sent before it started are of no use to
+     * caches that were empty then. The partition of the topic is assigned to the consumer, which has no group and
+     * commits no offsets, so that the instances leave nothing behind on the broker.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "kafka")
+    public KafkaMessageListenerContainer<String, String> cacheInvalidationListenerContainer(
+        ConsumerFactory<String, String> consumerFactory,
+        KafkaCacheInvalidationBus cacheInvalidationBus
+    ) {
+        ContainerProperties containerProperties = new ContainerProperties(
+            new TopicPartitionOffset(cache.getInvalidation().getTopic(), 0, SeekPosition.END)
+        );
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setAssignmentCommitOption(ContainerProperties.AssignmentCommitOption.NEVER);
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        containerProperties.setKafkaConsumerProperties(consumerProperties);
+        containerProperties.setMessageListener(cacheInvalidationBus);
+        return new KafkaMessageListenerContainer<>(consumerFactory, containerProperties);
+    }
+
+    /**
+     * The topic has a single partition, the one the instances are assigned: the invalidations are few and small.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.cache.invalidation.transport", havingValue = "kafka")
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(cache.getInvalidation().getTopic()).partitions(1).build();
+    }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(CacheInvalidationBus cacheInvalidationBus, MeterRegistry meterRegistry) {
+        return new CacheInvalidationPublisher(cacheInvalidationBus, meterRegistry);
+    }
+
+    /**
+     * Has the entities written by this instance evicted from the caches of the others, and the other way round, once the
+     * entity manager factory is built: it depends on the cache manager.
+     */
+    @Bean
+    public SmartInitializingSingleton cacheInvalidationRegistrar(
+        ObjectProvider<EntityManagerFactory> entityManagerFactory,
+        javax.cache.CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus,
+        CacheInvalidationPublisher cacheInvalidationPublisher,
+        MeterRegistry meterRegistry
+    ) {
+        return () ->
+            entityManagerFactory.ifAvailable(factory -> {
+                SessionFactoryImplementor sessionFactory = factory.unwrap(SessionFactoryImplementor.class);
+                EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+                listeners.appendListeners(EventType.POST_INSERT, cacheInvalidationPublisher);
+                listeners.appendListeners(EventType.POST_UPDATE, cacheInvalidationPublisher);
+                listeners.appendListeners(EventType.POST_DELETE, cacheInvalidationPublisher);
+                cacheInvalidationBus.subscribe(
+                    new CacheInvalidationReceiver(
+                        cacheInvalidationBus.getNode(),
+                        sessionFactory,
+                        cacheManager,
+                        Map.of(com.ensa.domain.Walet.class.getName(), List.of(com.ensa.web.rest.WaletResource.MISSING_WALETS_CACHE)),
+                        meterRegistry
+                    )
+                );
+            });
+    }
+
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cache = cm.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(regionConfiguration(cacheName)));
+            if (isClearedOnStartup(cacheName)) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Whether a region reloaded from its disk tier must be emptied: with the invalidations sent over Kafka, those sent
+     * while this instance was down are not read, see {@link #cacheInvalidationListenerContainer}, so the entries the
+     * other instances wrote to in the meantime would be served stale.
+     */
+    boolean isClearedOnStartup(String cacheName) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().get(cacheName);
+        return (
+            region != null &&
+            region.getDiskSize() != null &&
+            cache.getInvalidation().getTransport() == ApplicationProperties.Cache.Invalidation.Transport.KAFKA
+        );
+    }
+
+    /**
+     * Builds the tiers and expiry of a region from {@code application.cache.regions}, falling back to the
+     * {@code jhipster.cache.ehcache} heap size and time to live.
+     */
+    org.ehcache.config.CacheConfiguration<Object, Object> regionConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().getOrDefault(cacheName, new ApplicationProperties.Cache.Region());
+
+        ResourcePoolsBuilder resourcePools = region.getHeapSize() != null
+            ? ResourcePoolsBuilder.newResourcePoolsBuilder().heap(region.getHeapSize().toBytes(), MemoryUnit.B)
+            : ResourcePoolsBuilder
+                .newResourcePoolsBuilder()
+                .heap(region.getHeapEntries() != null ? region.getHeapEntries() : ehcache.getMaxEntries(), EntryUnit.ENTRIES);
+        if (region.getOffHeapSize() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeapSize().toBytes(), MemoryUnit.B);
+        }
+        if (region.getDiskSize() != null) {
+            if (cache.getDiskPath() == null) {
+                throw new IllegalStateException("Cache region " + cacheName + " has a disk-size but application.cache.disk-path is not set");
+            }
+            resourcePools = resourcePools.disk(region.getDiskSize().toBytes(), MemoryUnit.B, true);
+        }
+
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(
+            Object.class,
+            Object.class,
+            resourcePools
+        );
+        if (region.getTimeToIdle() != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToIdleExpiration(region.getTimeToIdle()));
+        } else {
+            Duration timeToLive = region.getTimeToLive() != null
+                ? region.getTimeToLive()
+                : Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive));
         }
+        if (region.isPinHotKeys() && hotWaletTracker != null) {
+            builder = builder.withEvictionAdvisor(hotWaletEvictionAdvisor(hotWaletTracker));
+        }
+        if (region.getOffHeapSize() != null || region.getDiskSize() != null) {
+            // The tiers below the heap store serialized entries, which Ehcache cannot do for Object unaided
+            ClassLoader classLoader = getClass().getClassLoader();
+            builder = builder.withKeySerializer(new PlainJavaSerializer<>(classLoader)).withValueSerializer(new PlainJavaSerializer<>(classLoader));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Advises against evicting the entries of the hot walets, for the regions keyed by walet id or, with the default
+     * Hibernate cache keys, by walet entity key. Ehcache evicts them anyway when all the entries it samples are advised
+     * against.
+     */
+    private static EvictionAdvisor<Object, Object> hotWaletEvictionAdvisor(HotWaletTracker hotWaletTracker) {
+        return (key, value) -> {
+            Object id = key instanceof Long ? key : DefaultCacheKeysFactory.staticGetEntityId(key);
+            return id instanceof Long && hotWaletTracker.isHot((Long) id);
+        };
+    }
+
+    @Autowired(required = false)
+    public void setHotWaletTracker(HotWaletTracker hotWaletTracker) {
+        this.hotWaletTracker = hotWaletTracker;
     }
 
     @Autowired(required = false)
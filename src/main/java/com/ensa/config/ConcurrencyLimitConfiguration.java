@@ -0,0 +1,38 @@
+package com.ensa.config;
+
+import com.ensa.web.rest.ConcurrencyLimitInterceptor;
+import com.ensa.web.rest.WaletResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the {@link WaletResource} behind an adaptive concurrency limit, as configured by
+ * {@link ApplicationProperties.ConcurrencyLimit}.
+ * <p>
+ * The streaming endpoints are left out: they would hold their part of the limit for as long as they stream, and their
+ * latencies, unrelated to the load, would make it shrink and shed the short requests.
+ */
+@Configuration
+public class ConcurrencyLimitConfiguration implements WebMvcConfigurer {
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimitConfiguration(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        ApplicationProperties.ConcurrencyLimit concurrencyLimit = applicationProperties.getConcurrencyLimit();
+        if (concurrencyLimit.isEnabled()) {
+            registry
+                .addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimit, meterRegistry, WaletResource.class))
+                .excludePathPatterns("/api/walets/stream");
+        }
+    }
+}
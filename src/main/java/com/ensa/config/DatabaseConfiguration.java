@@ -1,15 +1,32 @@
 package com.ensa.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import java.sql.SQLException;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -27,6 +44,83 @@ public class DatabaseConfiguration {
         this.env = env;
     }
 
+    /**
+     * The pool of connections to the primary database, configured by {@code spring.datasource}, as Spring Boot would.
+     * Liquibase always runs against it.
+     */
+    @Bean
+    @LiquibaseDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(dataSourceProperties.getName())) {
+            dataSource.setPoolName(dataSourceProperties.getName());
+        }
+        return dataSource;
+    }
+
+    /**
+     * The pool of connections to the read replica, configured by {@code spring.datasource.replica} with the Hikari
+     * property names, like {@code jdbc-url} and {@code pool-name}.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    @ConditionalOnProperty("spring.datasource.replica.jdbc-url")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    /**
+     * Times the statements executed through the data source of the application.
+     */
+    @Bean
+    public StatementMetrics statementMetrics(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        return new StatementMetrics(applicationProperties.getSql(), meterRegistry);
+    }
+
+    /**
+     * The data source of the application, sending read-only transactions to the read replica when one is configured,
+     * see {@link ReadReplicaRoutingDataSource}, and timing every statement with the {@link StatementMetrics}.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+        @Qualifier("primaryDataSource") DataSource primaryDataSource,
+        @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+        ApplicationProperties applicationProperties,
+        StatementMetrics statementMetrics
+    ) {
+        DataSource dataSource = primaryDataSource;
+        DataSource replica = replicaDataSource.getIfAvailable();
+        if (replica != null) {
+            log.debug("Sending read-only transactions to the read replica");
+            dataSource =
+                new LazyConnectionDataSourceProxy(
+                    new ReadReplicaRoutingDataSource(primaryDataSource, replica, applicationProperties.getReadReplica().getPinAfterWrite())
+                );
+        }
+        return ProxyDataSourceBuilder.create(dataSource).name("dataSource").listener(statementMetrics).build();
+    }
+
+    /**
+     * Binds the statistics of each entity once the entity manager factory is built, as Spring Boot does for the global
+     * statistics, rather than making the meter registry depend on it.
+     */
+    @Bean
+    public SmartInitializingSingleton hibernateEntityMetricsBinder(
+        ObjectProvider<EntityManagerFactory> entityManagerFactory,
+        MeterRegistry meterRegistry
+    ) {
+        return () ->
+            entityManagerFactory.ifAvailable(factory ->
+                new HibernateEntityMetrics(
+                    factory.unwrap(SessionFactory.class).getStatistics(),
+                    Tags.of("entityManagerFactory", "entityManagerFactory")
+                )
+                    .bindTo(meterRegistry)
+            );
+    }
+
     /**
      * Open the TCP port for the H2 database, so it is available remotely.
      *
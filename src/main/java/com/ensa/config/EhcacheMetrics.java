@@ -0,0 +1,99 @@
+package com.ensa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import java.util.Map;
+import org.ehcache.core.InternalCache;
+import org.ehcache.core.internal.statistics.DefaultCacheStatistics;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+
+/**
+ * Binds the statistics Ehcache keeps for a cache, which unlike those read by
+ * {@link io.micrometer.core.instrument.binder.cache.JCacheMetrics} need neither JMX nor the JCache statistics to be
+ * enabled, and include the number of entries and bytes of each tier.
+ * <p>
+ * The size of the cache is that of its authoritative tier, the lowest one, which holds all the entries.
+ */
+public class EhcacheMetrics extends CacheMeterBinder {
+
+    private final CacheStatistics statistics;
+
+    public EhcacheMetrics(CacheStatistics statistics, String cacheName, Iterable<Tag> tags) {
+        super(statistics, cacheName, tags);
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the statistics of a JCache cache, or {@code null} if it is not an Ehcache one.
+     */
+    public static CacheStatistics getStatistics(javax.cache.Cache<?, ?> cache) {
+        org.ehcache.Cache<?, ?> ehcache = cache.unwrap(org.ehcache.Cache.class);
+        return ehcache instanceof InternalCache ? new DefaultCacheStatistics((InternalCache<?, ?>) ehcache) : null;
+    }
+
+    /**
+     * @return the number of entries of the authoritative tier.
+     */
+    public static long getSize(CacheStatistics statistics) {
+        return statistics.getTierStatistics().values().stream().mapToLong(TierStatistics::getMappings).max().orElse(0);
+    }
+
+    @Override
+    protected Long size() {
+        return getSize(statistics);
+    }
+
+    @Override
+    protected long hitCount() {
+        return statistics.getCacheHits();
+    }
+
+    @Override
+    protected Long missCount() {
+        return statistics.getCacheMisses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return statistics.getCacheEvictions();
+    }
+
+    @Override
+    protected long putCount() {
+        return statistics.getCachePuts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter
+            .builder("cache.removals", statistics, CacheStatistics::getCacheRemovals)
+            .tags(getTagsWithCacheName())
+            .description("Cache removals")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.expirations", statistics, CacheStatistics::getCacheExpirations)
+            .tags(getTagsWithCacheName())
+            .description("Entries expired from the cache")
+            .register(registry);
+        for (Map.Entry<String, TierStatistics> tier : statistics.getTierStatistics().entrySet()) {
+            Gauge
+                .builder("cache.tier.size", tier.getValue(), TierStatistics::getMappings)
+                .tags(getTagsWithCacheName())
+                .tag("tier", tier.getKey())
+                .description("The number of entries in the tier of the cache")
+                .register(registry);
+            Gauge
+                .builder("cache.tier.occupied", tier.getValue(), TierStatistics::getOccupiedByteSize)
+                .tags(getTagsWithCacheName())
+                .tag("tier", tier.getKey())
+                .description("The bytes taken by the entries in the tier of the cache, when it is sized in bytes")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        }
+    }
+}
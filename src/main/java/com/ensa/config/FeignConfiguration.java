@@ -1,14 +1,26 @@
 package com.ensa.config;
 
+import com.ensa.client.GzipRequestInterceptor;
+import feign.Request;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
 import org.springframework.cloud.openfeign.EnableFeignClients;
-import org.springframework.cloud.openfeign.FeignClientsConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
 
 @Configuration
 @EnableFeignClients(basePackages = "com.ensa")
-@Import(FeignClientsConfiguration.class)
 public class FeignConfiguration {
 
     /**
@@ -18,4 +30,74 @@ public class FeignConfiguration {
     feign.Logger.Level feignLoggerLevel() {
         return feign.Logger.Level.BASIC;
     }
+
+    /**
+     * Names the circuit breaker, time limiter and bulkhead of each Feign client method like {@code accountapi_getAccount},
+     * the instance names of the {@code resilience4j} properties.
+     */
+    @Bean
+    public CircuitBreakerNameResolver circuitBreakerNameResolver() {
+        return (feignClientName, target, method) -> feignClientName + "_" + method.getName();
+    }
+
+    /**
+     * Counts the calls each thread-pool bulkhead rejects, which the resilience4j meters leave out.
+     */
+    @Bean
+    public RegistryEventConsumer<ThreadPoolBulkhead> bulkheadRejectionsConsumer(MeterRegistry meterRegistry) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<ThreadPoolBulkhead> entryAddedEvent) {
+                ThreadPoolBulkhead bulkhead = entryAddedEvent.getAddedEntry();
+                Counter rejections = Counter
+                    .builder("client.bulkhead.rejections")
+                    .description("Calls rejected because the bulkhead was full")
+                    .tag("name", bulkhead.getName())
+                    .register(meterRegistry);
+                bulkhead.getEventPublisher().onCallRejected(event -> rejections.increment());
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<ThreadPoolBulkhead> entryRemoveEvent) {}
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<ThreadPoolBulkhead> entryReplacedEvent) {}
+        };
+    }
+
+    /**
+     * The OkHttp client all the Feign clients run on, when {@code feign.okhttp.enabled} is set.
+     * <p>
+     * Connections are pooled and kept alive; HTTP/2 is negotiated with the services reached over TLS. Responses are
+     * transparently gzip-decoded by OkHttp, and large request bodies gzip-encoded.
+     */
+    @Bean
+    public OkHttpClient feignOkHttpClient(ApplicationProperties applicationProperties) {
+        ApplicationProperties.HttpClient httpClient = applicationProperties.getHttpClient();
+        return new OkHttpClient.Builder()
+            .connectionPool(
+                new ConnectionPool(httpClient.getMaxIdleConnections(), httpClient.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS)
+            )
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(httpClient.getConnectTimeout())
+            .readTimeout(httpClient.getReadTimeout())
+            .writeTimeout(httpClient.getWriteTimeout())
+            .addInterceptor(new GzipRequestInterceptor(httpClient.getCompressionMinSize().toBytes()))
+            .build();
+    }
+
+    /**
+     * The same timeouts as {@link #feignOkHttpClient}: Feign would otherwise derive a new OkHttp client on each call.
+     */
+    @Bean
+    public Request.Options feignRequestOptions(ApplicationProperties applicationProperties) {
+        ApplicationProperties.HttpClient httpClient = applicationProperties.getHttpClient();
+        return new Request.Options(
+            httpClient.getConnectTimeout().toMillis(),
+            TimeUnit.MILLISECONDS,
+            httpClient.getReadTimeout().toMillis(),
+            TimeUnit.MILLISECONDS,
+            true
+        );
+    }
 }
@@ -0,0 +1,57 @@
+package com.ensa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToLongFunction;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Binds the statistics Hibernate keeps for each entity, when {@code hibernate.generate_statistics} is on.
+ * <p>
+ * Spring Boot binds the global statistics, and those of the second-level cache regions, with
+ * {@link org.hibernate.stat.HibernateMetrics}; these tell which entity the loads and writes are of.
+ */
+public class HibernateEntityMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    private final Iterable<Tag> tags;
+
+    public HibernateEntityMetrics(Statistics statistics, Iterable<Tag> tags) {
+        this.statistics = statistics;
+        this.tags = tags;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        for (String entity : statistics.getEntityNames()) {
+            counter(registry, "hibernate.entity.loads", "The number of loads of the entity", entity, EntityStatistics::getLoadCount);
+            counter(registry, "hibernate.entity.fetches", "The number of fetches of the entity", entity, EntityStatistics::getFetchCount);
+            counter(registry, "hibernate.entity.inserts", "The number of inserts of the entity", entity, EntityStatistics::getInsertCount);
+            counter(registry, "hibernate.entity.updates", "The number of updates of the entity", entity, EntityStatistics::getUpdateCount);
+            counter(registry, "hibernate.entity.deletes", "The number of deletes of the entity", entity, EntityStatistics::getDeleteCount);
+            counter(
+                registry,
+                "hibernate.entity.optimistic.failures",
+                "The number of optimistic lock failures on the entity",
+                entity,
+                EntityStatistics::getOptimisticFailureCount
+            );
+        }
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, String entity, ToLongFunction<EntityStatistics> count) {
+        FunctionCounter
+            .builder(name, statistics, stats -> count.applyAsLong(stats.getEntityStatistics(entity)))
+            .tags(Tags.concat(tags, "entity", entity))
+            .description(description)
+            .register(registry);
+    }
+}
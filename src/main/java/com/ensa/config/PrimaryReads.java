@@ -0,0 +1,43 @@
+package com.ensa.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the read-only transactions begun by some reads to the primary database rather than to the read replica, see
+ * {@link ReadReplicaRoutingDataSource}: for the reads that must see the latest writes of every client, without pinning
+ * the current one to the primary as a read-write transaction would.
+ * <p>
+ * The route is decided when a transaction acquires its connection, so the transactions must begin within the reads;
+ * those already begun keep their connection.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> onPrimary = new ThreadLocal<>();
+
+    private PrimaryReads() {}
+
+    /**
+     * Runs reads with the transactions they begin sent to the primary.
+     *
+     * @param reads the reads.
+     * @return what the reads return.
+     */
+    public static <T> T run(Supplier<T> reads) {
+        boolean outermost = onPrimary.get() == null;
+        onPrimary.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (outermost) {
+                onPrimary.remove();
+            }
+        }
+    }
+
+    /**
+     * @return whether the current thread runs reads that must be sent to the primary.
+     */
+    static boolean isRequired() {
+        return onPrimary.get() != null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ensa.config;
+
+import com.ensa.security.SecurityUtils;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sends the connections of read-only transactions to a replica of the database, and all the others to the primary.
+ * <p>
+ * The route is decided when the connection is acquired, from the read-only flag of the current transaction, which
+ * Spring only sets once the transaction has begun: this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which acquires the connection on the
+ * first statement.
+ * <p>
+ * As the replica lags behind the primary, a client that has committed a read-write transaction has its read-only
+ * transactions sent to the primary for {@code pinAfterWrite}, so that it reads its own writes. Clients are told apart
+ * by their login, or by their address when they are not authenticated; the pins are held by this instance only.
+ * Reads that must see the latest writes of other clients belong in transactions begun by {@link PrimaryReads}.
+ */
+class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA,
+    }
+
+    private final long pinAfterWrite;
+
+    private final LongSupplier nanoTime;
+
+    private final ConcurrentMap<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep;
+
+    ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration pinAfterWrite) {
+        this(primary, replica, pinAfterWrite, System::nanoTime);
+    }
+
+    ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration pinAfterWrite, LongSupplier nanoTime) {
+        this.pinAfterWrite = pinAfterWrite.toNanos();
+        this.nanoTime = nanoTime;
+        this.nextSweep = new AtomicLong(nanoTime.getAsLong() + this.pinAfterWrite);
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        String client = currentClient();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            pin(client);
+                        }
+                    }
+                );
+            }
+            return Route.PRIMARY;
+        }
+        if (PrimaryReads.isRequired() || (client != null && isPinned(client))) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    private void pin(String client) {
+        long now = nanoTime.getAsLong();
+        pinnedUntil.put(client, now + pinAfterWrite);
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + pinAfterWrite)) {
+            pinnedUntil.forEach((pinnedClient, until) -> {
+                if (now - until >= 0) {
+                    pinnedUntil.remove(pinnedClient, until);
+                }
+            });
+        }
+    }
+
+    private boolean isPinned(String client) {
+        Long until = pinnedUntil.get(client);
+        return until != null && until - nanoTime.getAsLong() > 0;
+    }
+
+    private static String currentClient() {
+        if (SecurityUtils.isAuthenticated()) {
+            return "user:" + SecurityUtils.getCurrentUserLogin().orElse("");
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            return "address:" + ((ServletRequestAttributes) requestAttributes).getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
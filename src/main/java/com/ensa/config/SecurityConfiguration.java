@@ -2,6 +2,10 @@ package com.ensa.config;
 
 import com.ensa.security.*;
 import com.ensa.security.jwt.*;
+import com.ensa.service.IdempotencyService;
+import com.ensa.web.rest.IdempotencyFilter;
+import com.ensa.web.rest.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -11,6 +15,8 @@ import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 import tech.jhipster.config.JHipsterProperties;
@@ -24,15 +30,24 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final TokenProvider tokenProvider;
     private final SecurityProblemSupport problemSupport;
+    private final IdempotencyService idempotencyService;
+    private final ApplicationProperties applicationProperties;
+    private final MeterRegistry meterRegistry;
 
     public SecurityConfiguration(
         TokenProvider tokenProvider,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        IdempotencyService idempotencyService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
     ) {
         this.tokenProvider = tokenProvider;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
+        this.idempotencyService = idempotencyService;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -60,11 +75,13 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .frameOptions()
             .deny()
         .and()
+            .addFilterAfter(new IdempotencyFilter(idempotencyService), FilterSecurityInterceptor.class)
             .sessionManagement()
             .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         .and()
             .authorizeRequests()
             .antMatchers("/api/authenticate").permitAll()
+            .antMatchers("/api/logout").authenticated()
             .antMatchers("/api/admin/**").permitAll()
             .antMatchers("/api/**").permitAll()
             .antMatchers("/management/health").permitAll()
@@ -75,6 +92,11 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .and()
             .apply(securityConfigurerAdapter());
         // @formatter:on
+        if (applicationProperties.getRateLimit().isEnabled()) {
+            // The JWTFilter comes just before the UsernamePasswordAuthenticationFilter
+            RateLimitFilter rateLimitFilter = new RateLimitFilter(applicationProperties.getRateLimit(), meterRegistry);
+            http.addFilterAfter(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
+        }
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
@@ -0,0 +1,154 @@
+package com.ensa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times the SQL statements executed through the data source proxy, by shape, and logs the slow ones.
+ * <p>
+ * The shape of a statement is its SQL with the literals replaced by {@code ?} and the {@code in} lists collapsed, so
+ * that the executions of a query share one {@value #TIMER_NAME} timer, tagged with it, whatever their parameters. The
+ * number of shapes is capped at {@code maxStatementShapes}; the statements of the shapes beyond it are timed together,
+ * under {@value #OTHER_SHAPE}. A batch is one execution, of the shape of its first statement.
+ * <p>
+ * The statements a thread executes between {@link #startCounting()} and {@link #stopCounting()} are counted, see
+ * {@link com.ensa.web.rest.StatementCountFilter}.
+ */
+public class StatementMetrics implements QueryExecutionListener {
+
+    public static final String TIMER_NAME = "db.statements";
+
+    static final String OTHER_SHAPE = "other";
+
+    private static final String START = StatementMetrics.class.getName() + ".start";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Logger log = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final long slowStatementThreshold;
+
+    private final int maxStatementShapes;
+
+    /**
+     * The timers of the statements, by SQL as executed; bounded, as the number of shapes is.
+     */
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> shapes = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<int[]> counter = new ThreadLocal<>();
+
+    public StatementMetrics(ApplicationProperties.Sql properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.slowStatementThreshold = properties.getSlowStatementThreshold().toNanos();
+        this.maxStatementShapes = properties.getMaxStatementShapes();
+    }
+
+    /**
+     * Starts counting the statements executed by the current thread.
+     */
+    public void startCounting() {
+        counter.set(new int[1]);
+    }
+
+    /**
+     * Stops counting the statements executed by the current thread.
+     *
+     * @return the number of statements executed since {@link #startCounting()}.
+     */
+    public int stopCounting() {
+        int[] count = counter.get();
+        counter.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = System.nanoTime() - execInfo.getCustomValue(START, Long.class);
+        int[] count = counter.get();
+        if (count != null) {
+            count[0]++;
+        }
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        String sql = queryInfoList.get(0).getQuery();
+        getTimer(sql).record(elapsed, TimeUnit.NANOSECONDS);
+        if (elapsed >= slowStatementThreshold) {
+            int bindParameters = queryInfoList
+                .stream()
+                .flatMap(queryInfo -> queryInfo.getParametersList().stream())
+                .mapToInt(List::size)
+                .sum();
+            log.warn(
+                "Slow SQL statement, {} ms with {} bind parameters{}: {}",
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                bindParameters,
+                execInfo.isBatch() ? " in a batch of " + execInfo.getBatchSize() : "",
+                normalize(sql)
+            );
+        }
+    }
+
+    private Timer getTimer(String sql) {
+        Timer timer = timers.get(sql);
+        if (timer != null) {
+            return timer;
+        }
+        String shape = normalize(sql);
+        timer = shapes.get(shape);
+        if (timer == null) {
+            if (shapes.size() < maxStatementShapes) {
+                timer = shapes.computeIfAbsent(shape, this::registerTimer);
+            } else {
+                timer = registerTimer(OTHER_SHAPE);
+            }
+        }
+        if (timers.size() < maxStatementShapes * 4) {
+            timers.put(sql, timer);
+        }
+        return timer;
+    }
+
+    private Timer registerTimer(String shape) {
+        return Timer
+            .builder(TIMER_NAME)
+            .description("Time taken to execute the SQL statements, by shape")
+            .tag("query", shape)
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the shape of a statement: its SQL without literals, {@code in} lists of parameters and extra whitespace.
+     */
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
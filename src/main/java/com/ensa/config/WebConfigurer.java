@@ -1,13 +1,17 @@
 package com.ensa.config;
 
+import com.ensa.web.rest.StatementCountFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import javax.servlet.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.server.*;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
 import org.springframework.util.CollectionUtils;
@@ -61,6 +65,23 @@ public class WebConfigurer implements ServletContextInitializer {
         return new CorsFilter(source);
     }
 
+    /**
+     * Counts the SQL statements of each request, around all the other filters so that those of the security filters are
+     * counted too.
+     */
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilter(
+        StatementMetrics statementMetrics,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        FilterRegistrationBean<StatementCountFilter> registration = new FilterRegistrationBean<>(
+            new StatementCountFilter(statementMetrics, meterRegistry, applicationProperties.getSql().getMaxStatementsPerRequest())
+        );
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
     /**
      * Initializes H2 console.
      */
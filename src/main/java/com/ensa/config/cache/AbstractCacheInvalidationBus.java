@@ -0,0 +1,46 @@
+package com.ensa.config.cache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the subscribers of a {@link CacheInvalidationBus}, a failing subscriber not keeping the others from being
+ * delivered to.
+ */
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String node = UUID.randomUUID().toString();
+
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getNode() {
+        return node;
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    protected void deliver(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {}: {}", invalidation, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ensa.config.cache;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Set;
+
+/**
+ * The ids of the instances of an entity written by a committed transaction, for the other instances of the application
+ * to evict from their caches.
+ */
+public final class CacheInvalidation {
+
+    private final String origin;
+
+    private final String entity;
+
+    private final Set<Long> ids;
+
+    private final boolean naturalIds;
+
+    /**
+     * @param origin the node the transaction was committed on, see {@link CacheInvalidationBus#getNode()}.
+     * @param entity the entity name.
+     * @param ids the ids of the instances written.
+     * @param naturalIds whether natural ids of the entity were changed or deleted, in which case the whole natural id
+     * region is to be evicted, as the natural ids it was cached under are not known.
+     */
+    @JsonCreator
+    public CacheInvalidation(
+        @JsonProperty("origin") String origin,
+        @JsonProperty("entity") String entity,
+        @JsonProperty("ids") Set<Long> ids,
+        @JsonProperty("naturalIds") boolean naturalIds
+    ) {
+        this.origin = origin;
+        this.entity = entity;
+        this.ids = ids;
+        this.naturalIds = naturalIds;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Set<Long> getIds() {
+        return ids;
+    }
+
+    public boolean isNaturalIds() {
+        return naturalIds;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{origin='" + origin + "', entity='" + entity + "', ids=" + ids + ", naturalIds=" + naturalIds + "}";
+    }
+}
@@ -0,0 +1,24 @@
+package com.ensa.config.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries the {@link CacheInvalidation}s between the instances of the application, so that each evicts the keys
+ * written by the others rather than serving them stale until they expire.
+ * <p>
+ * The invalidations published are delivered to the subscribers of every instance, the publishing one included; the
+ * subscribers tell them apart by their {@link CacheInvalidation#getOrigin() origin}. Delivery is at most once: an
+ * invalidation lost leaves the keys to their time to live.
+ */
+public interface CacheInvalidationBus {
+    /**
+     * @return the id of this instance on the bus, unique across the instances and their restarts.
+     */
+    String getNode();
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> subscriber);
+
+    void unsubscribe(Consumer<CacheInvalidation> subscriber);
+}
@@ -0,0 +1,151 @@
+package com.ensa.config.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes on the {@link CacheInvalidationBus} the ids of the cached entities inserted, updated and deleted by a
+ * transaction, once it is committed: one {@link CacheInvalidation} by entity and transaction.
+ * <p>
+ * It is registered as a Hibernate event listener, which bulk {@code update} and {@code delete} queries bypass: the
+ * code running them calls {@link #invalidate(String, Long, boolean)} itself. Only entities with {@link Long} ids,
+ * which all of this application's are, are published.
+ */
+public class CacheInvalidationPublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final CacheInvalidationBus bus;
+
+    private final MeterRegistry meterRegistry;
+
+    public CacheInvalidationPublisher(CacheInvalidationBus bus, MeterRegistry meterRegistry) {
+        this.bus = bus;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // A new id may have been cached as missing, see WaletResource.MISSING_WALETS_CACHE
+        invalidate(event.getPersister(), event.getId(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        boolean naturalIdChanged = false;
+        if (persister.hasNaturalIdCache() && event.getDirtyProperties() != null) {
+            for (int dirtyProperty : event.getDirtyProperties()) {
+                for (int naturalIdProperty : persister.getNaturalIdentifierProperties()) {
+                    naturalIdChanged |= dirtyProperty == naturalIdProperty;
+                }
+            }
+        }
+        invalidate(persister, event.getId(), naturalIdChanged);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getPersister(), event.getId(), event.getPersister().hasNaturalIdCache());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void invalidate(EntityPersister persister, Serializable id, boolean naturalIds) {
+        if (persister.canWriteToCache() && id instanceof Long) {
+            invalidate(persister.getEntityName(), (Long) id, naturalIds);
+        }
+    }
+
+    /**
+     * Has an instance of an entity evicted from the caches of the other instances of the application, once the current
+     * transaction is committed, right away if there is none.
+     *
+     * @param entity the entity name.
+     * @param id the id of the instance.
+     * @param naturalIds whether its natural id may have changed.
+     */
+    public void invalidate(String entity, Long id, boolean naturalIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(entity, new Pending(id, naturalIds));
+            return;
+        }
+        // Looked up among the synchronizations rather than bound as a resource, as those are suspended with their transaction
+        PublishAfterCommit publishAfterCommit = TransactionSynchronizationManager
+            .getSynchronizations()
+            .stream()
+            .filter(synchronization -> synchronization instanceof PublishAfterCommit)
+            .map(PublishAfterCommit.class::cast)
+            .filter(synchronization -> synchronization.publisher() == this)
+            .findFirst()
+            .orElse(null);
+        if (publishAfterCommit == null) {
+            publishAfterCommit = new PublishAfterCommit();
+            TransactionSynchronizationManager.registerSynchronization(publishAfterCommit);
+        }
+        publishAfterCommit.pending.merge(entity, new Pending(id, naturalIds), Pending::merge);
+    }
+
+    private void publish(String entity, Pending pending) {
+        bus.publish(new CacheInvalidation(bus.getNode(), entity, pending.ids, pending.naturalIds));
+        Counter
+            .builder("cache.invalidations.published")
+            .description("Ids published for the other instances to evict from their caches")
+            .tag("entity", entity)
+            .register(meterRegistry)
+            .increment(pending.ids.size());
+    }
+
+    private final class PublishAfterCommit implements TransactionSynchronization {
+
+        private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+        private CacheInvalidationPublisher publisher() {
+            return CacheInvalidationPublisher.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            pending.forEach(CacheInvalidationPublisher.this::publish);
+        }
+    }
+
+    private static final class Pending {
+
+        private final Set<Long> ids = new LinkedHashSet<>();
+
+        private boolean naturalIds;
+
+        private Pending(Long id, boolean naturalIds) {
+            this.ids.add(id);
+            this.naturalIds = naturalIds;
+        }
+
+        private Pending merge(Pending other) {
+            ids.addAll(other.ids);
+            naturalIds |= other.naturalIds;
+            return this;
+        }
+    }
+}
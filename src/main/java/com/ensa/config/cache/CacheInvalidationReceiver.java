@@ -0,0 +1,77 @@
+package com.ensa.config.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evicts the keys written by the other instances of the application, as published by their
+ * {@link CacheInvalidationPublisher}: the instances of the entity from its second-level cache region, the natural ids
+ * of the entity when they may have changed, and the ids from the regions keyed by the ids of the entity. The keys of
+ * the instance it runs on are kept up to date by Hibernate.
+ */
+public class CacheInvalidationReceiver implements Consumer<CacheInvalidation> {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationReceiver.class);
+
+    private final String node;
+
+    private final SessionFactory sessionFactory;
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, List<String>> regionsById;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param regionsById the regions, outside of Hibernate, keyed by the ids of an entity, by entity name.
+     */
+    public CacheInvalidationReceiver(
+        String node,
+        SessionFactory sessionFactory,
+        CacheManager cacheManager,
+        Map<String, List<String>> regionsById,
+        MeterRegistry meterRegistry
+    ) {
+        this.node = node;
+        this.sessionFactory = sessionFactory;
+        this.cacheManager = cacheManager;
+        this.regionsById = regionsById;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void accept(CacheInvalidation invalidation) {
+        if (node.equals(invalidation.getOrigin())) {
+            return;
+        }
+        log.debug("Evicting {}", invalidation);
+        org.hibernate.Cache cache = sessionFactory.getCache();
+        for (Long id : invalidation.getIds()) {
+            cache.evictEntityData(invalidation.getEntity(), id);
+        }
+        if (invalidation.isNaturalIds()) {
+            cache.evictNaturalIdData(invalidation.getEntity());
+        }
+        for (String region : regionsById.getOrDefault(invalidation.getEntity(), List.of())) {
+            Cache<Object, Object> regionCache = cacheManager.getCache(region);
+            if (regionCache != null) {
+                regionCache.removeAll(invalidation.getIds());
+            }
+        }
+        Counter
+            .builder("cache.invalidations.received")
+            .description("Ids evicted from the caches as written by the other instances")
+            .tag("entity", invalidation.getEntity())
+            .register(meterRegistry)
+            .increment(invalidation.getIds().size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ensa.config.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListener;
+
+/**
+ * A {@link CacheInvalidationBus} over a Kafka topic, the invalidations being sent as JSON keyed by entity.
+ * <p>
+ * Every instance must read all of the invalidations: it listens to the topic, see {@link #onMessage(ConsumerRecord)},
+ * from the latest offset, with its partitions assigned rather than through a consumer group.
+ */
+public class KafkaCacheInvalidationBus extends AbstractCacheInvalidationBus implements MessageListener<String, String> {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaCacheInvalidationBus.class);
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String topic;
+
+    private final Executor executor;
+
+    public KafkaCacheInvalidationBus(
+        KafkaTemplate<String, String> kafkaTemplate,
+        ObjectMapper objectMapper,
+        String topic,
+        Executor executor
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends the invalidation from the executor, without waiting for it to be acknowledged: it is published once its
+     * transaction is committed, on the thread of the request that committed it, which the producer could otherwise
+     * block while the broker is out of reach.
+     */
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not write {}: {}", invalidation, e.getMessage());
+            return;
+        }
+        try {
+            executor.execute(() -> send(invalidation, message));
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not send {} to {}: {}", invalidation, topic, e.getMessage());
+        }
+    }
+
+    private void send(CacheInvalidation invalidation, String message) {
+        kafkaTemplate
+            .send(topic, invalidation.getEntity(), message)
+            .addCallback(result -> {}, e -> log.warn("Could not send {} to {}: {}", invalidation, topic, e.getMessage()));
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, String> record) {
+        try {
+            deliver(objectMapper.readValue(record.value(), CacheInvalidation.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring the unreadable cache invalidation at offset {} of {}: {}", record.offset(), topic, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ensa.config.cache;
+
+/**
+ * A {@link CacheInvalidationBus} within a single JVM, delivering the invalidations to its subscribers as they are
+ * published: for a single instance, and for the tests, which play the other instances by publishing invalidations of
+ * another origin.
+ */
+public class LocalCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        deliver(invalidation);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ensa.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A BalanceSnapshot: the balance of a {@link Walet} once all its {@link LedgerEntry} up to {@code lastSequence} are applied.
+ */
+@Entity
+@Table(name = "balance_snapshot")
+@Immutable
+public class BalanceSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "walet_id", nullable = false)
+    private Long waletId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+
+    @Column(name = "balance", nullable = false)
+    private Long balance;
+
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public BalanceSnapshot id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getWaletId() {
+        return this.waletId;
+    }
+
+    public BalanceSnapshot waletId(Long waletId) {
+        this.setWaletId(waletId);
+        return this;
+    }
+
+    public void setWaletId(Long waletId) {
+        this.waletId = waletId;
+    }
+
+    public Long getLastSequence() {
+        return this.lastSequence;
+    }
+
+    public BalanceSnapshot lastSequence(Long lastSequence) {
+        this.setLastSequence(lastSequence);
+        return this;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public Long getBalance() {
+        return this.balance;
+    }
+
+    public BalanceSnapshot balance(Long balance) {
+        this.setBalance(balance);
+        return this;
+    }
+
+    public void setBalance(Long balance) {
+        this.balance = balance;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public BalanceSnapshot createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BalanceSnapshot)) {
+            return false;
+        }
+        return id != null && id.equals(((BalanceSnapshot) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BalanceSnapshot{" +
+            "id=" + getId() +
+            ", waletId=" + getWaletId() +
+            ", lastSequence=" + getLastSequence() +
+            ", balance=" + getBalance() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,206 @@
+package com.ensa.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * An IdempotencyRecord: the response a mutating request sent with an {@code Idempotency-Key} header was answered with.
+ * <p>
+ * The record is inserted without a status when the first request with the key starts executing, which claims the key
+ * across all instances, and completed with the response once the request has been handled. Its id being assigned, it
+ * tells Spring Data whether it is new, for a new record to be inserted, failing if the key was claimed meanwhile,
+ * rather than merged into the row of the claim.
+ */
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecord implements Persistable<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * SHA-256 of the user and of the key they sent, so that keys of different users never collide.
+     */
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    /**
+     * SHA-256 of the method, URI and body of the request, to detect a key reused for a different request.
+     */
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    /**
+     * {@code null} while the first request with the key is still executing.
+     */
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Lob
+    @Column(name = "headers")
+    private String headers;
+
+    @Lob
+    @Column(name = "body")
+    private byte[] body;
+
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return this.id;
+    }
+
+    public IdempotencyRecord id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return this.requestHash;
+    }
+
+    public IdempotencyRecord requestHash(String requestHash) {
+        this.setRequestHash(requestHash);
+        return this;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getStatus() {
+        return this.status;
+    }
+
+    public IdempotencyRecord status(Integer status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    public IdempotencyRecord contentType(String contentType) {
+        this.setContentType(contentType);
+        return this;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getHeaders() {
+        return this.headers;
+    }
+
+    public IdempotencyRecord headers(String headers) {
+        this.setHeaders(headers);
+        return this;
+    }
+
+    public void setHeaders(String headers) {
+        this.headers = headers;
+    }
+
+    public byte[] getBody() {
+        return this.body;
+    }
+
+    public IdempotencyRecord body(byte[] body) {
+        this.setBody(body);
+        return this;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public IdempotencyRecord createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public IdempotencyRecord expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotencyRecord)) {
+            return false;
+        }
+        return id != null && id.equals(((IdempotencyRecord) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+            "id=" + getId() +
+            ", requestHash='" + getRequestHash() + "'" +
+            ", status=" + getStatus() +
+            ", contentType='" + getContentType() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
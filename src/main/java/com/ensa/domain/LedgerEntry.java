@@ -0,0 +1,173 @@
+package com.ensa.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Type;
+
+/**
+ * A LedgerEntry: one leg of a balanced journal posted against a {@link Walet}.
+ * <p>
+ * Entries are append-only. Amounts are signed minor units (credits are positive, debits negative), and
+ * {@code sequence} numbers the entries of a walet without gaps, so a balance can resume from a {@link BalanceSnapshot}.
+ */
+@Entity
+@Table(name = "ledger_entry")
+@Immutable
+public class LedgerEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Column(name = "walet_id", nullable = false)
+    private Long waletId;
+
+    @NotNull
+    @Column(name = "amount", nullable = false)
+    private Long amount;
+
+    @Column(name = "sequence_number", nullable = false)
+    private Long sequence;
+
+    @Type(type = "uuid-char")
+    @Column(name = "journal_id", length = 36, nullable = false)
+    private UUID journalId;
+
+    @Size(max = 255)
+    @Column(name = "description", length = 255)
+    private String description;
+
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public LedgerEntry id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getWaletId() {
+        return this.waletId;
+    }
+
+    public LedgerEntry waletId(Long waletId) {
+        this.setWaletId(waletId);
+        return this;
+    }
+
+    public void setWaletId(Long waletId) {
+        this.waletId = waletId;
+    }
+
+    public Long getAmount() {
+        return this.amount;
+    }
+
+    public LedgerEntry amount(Long amount) {
+        this.setAmount(amount);
+        return this;
+    }
+
+    public void setAmount(Long amount) {
+        this.amount = amount;
+    }
+
+    public Long getSequence() {
+        return this.sequence;
+    }
+
+    public LedgerEntry sequence(Long sequence) {
+        this.setSequence(sequence);
+        return this;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public UUID getJournalId() {
+        return this.journalId;
+    }
+
+    public LedgerEntry journalId(UUID journalId) {
+        this.setJournalId(journalId);
+        return this;
+    }
+
+    public void setJournalId(UUID journalId) {
+        this.journalId = journalId;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public LedgerEntry description(String description) {
+        this.setDescription(description);
+        return this;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public LedgerEntry createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LedgerEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((LedgerEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+            "id=" + getId() +
+            ", waletId=" + getWaletId() +
+            ", amount=" + getAmount() +
+            ", sequence=" + getSequence() +
+            ", journalId='" + getJournalId() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
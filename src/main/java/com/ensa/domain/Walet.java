@@ -5,6 +5,8 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 /**
  * A Walet.
@@ -12,20 +14,22 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 @Entity
 @Table(name = "walet")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Walet implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    @NotNull
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     @Column(name = "id", nullable = false)
     private Long id;
 
     @Column(name = "id_c_lient")
     private Long idCLient;
 
-    @Column(name = "login")
+    @NaturalId(mutable = true)
+    @Column(name = "login", unique = true)
     private String login;
 
     @Column(name = "password")
@@ -111,7 +115,6 @@ public class Walet implements Serializable {
             "id=" + getId() +
             ", idCLient=" + getIdCLient() +
             ", login='" + getLogin() + "'" +
-            ", password='" + getPassword() + "'" +
             "}";
     }
 }
@@ -0,0 +1,158 @@
+package com.ensa.management;
+
+import com.ensa.config.EhcacheMetrics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.cache.Cache;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CacheDescriptor;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CacheManagerDescriptor;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CachesReport;
+import org.springframework.boot.actuate.cache.CachesEndpointWebExtension;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Adds the live statistics of the Ehcache caches to the list of caches of {@code /management/caches}: hits, misses,
+ * puts, evictions, and the number of entries of the cache and of each of its tiers, to size the regions from.
+ * <p>
+ * The operations on a single cache are those of Spring Boot.
+ */
+@EndpointWebExtension(endpoint = CachesEndpoint.class)
+public class CacheStatisticsEndpointWebExtension extends CachesEndpointWebExtension {
+
+    private final Map<String, CacheManager> cacheManagers;
+
+    public CacheStatisticsEndpointWebExtension(CachesEndpoint delegate, Map<String, CacheManager> cacheManagers) {
+        super(delegate);
+        this.cacheManagers = cacheManagers;
+    }
+
+    @ReadOperation
+    public CachesReport caches() {
+        Map<String, CacheManagerDescriptor> descriptors = new LinkedHashMap<>();
+        cacheManagers.forEach((cacheManagerName, cacheManager) -> {
+            Map<String, CacheDescriptor> caches = new LinkedHashMap<>();
+            for (String cacheName : cacheManager.getCacheNames()) {
+                org.springframework.cache.Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    caches.put(cacheName, describe(cache.getNativeCache()));
+                }
+            }
+            descriptors.put(cacheManagerName, new CacheManagerDescriptor(caches));
+        });
+        return new CachesReport(descriptors);
+    }
+
+    private static CacheDescriptor describe(Object nativeCache) {
+        String target = nativeCache.getClass().getName();
+        CacheStatistics statistics = nativeCache instanceof Cache ? EhcacheMetrics.getStatistics((Cache<?, ?>) nativeCache) : null;
+        return statistics != null ? new CacheStatisticsDescriptor(target, statistics) : new CacheDescriptor(target);
+    }
+
+    /**
+     * A cache with its statistics, counted since it was created.
+     */
+    public static final class CacheStatisticsDescriptor extends CacheDescriptor {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long puts;
+
+        private final long evictions;
+
+        private final long removals;
+
+        private final long expirations;
+
+        private final long size;
+
+        private final Map<String, TierDescriptor> tiers = new LinkedHashMap<>();
+
+        CacheStatisticsDescriptor(String target, CacheStatistics statistics) {
+            super(target);
+            this.hits = statistics.getCacheHits();
+            this.misses = statistics.getCacheMisses();
+            this.puts = statistics.getCachePuts();
+            this.evictions = statistics.getCacheEvictions();
+            this.removals = statistics.getCacheRemovals();
+            this.expirations = statistics.getCacheExpirations();
+            this.size = EhcacheMetrics.getSize(statistics);
+            statistics.getTierStatistics().forEach((tier, tierStatistics) -> tiers.put(tier, new TierDescriptor(tierStatistics)));
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the ratio of the gets that were hits, or {@code 0} if there was none.
+         */
+        public double getHitRatio() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getRemovals() {
+            return removals;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Map<String, TierDescriptor> getTiers() {
+            return tiers;
+        }
+    }
+
+    /**
+     * A tier of a cache, like {@code OnHeap}, with its entries and, when it is sized in bytes, the bytes they take.
+     */
+    public static final class TierDescriptor {
+
+        private final long size;
+
+        private final long occupiedBytes;
+
+        private final long evictions;
+
+        TierDescriptor(TierStatistics statistics) {
+            this.size = statistics.getMappings();
+            this.occupiedBytes = statistics.getOccupiedByteSize();
+            this.evictions = statistics.getEvictions();
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getOccupiedBytes() {
+            return occupiedBytes;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+    }
+}
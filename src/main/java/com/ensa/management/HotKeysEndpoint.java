@@ -0,0 +1,70 @@
+package com.ensa.management;
+
+import com.ensa.service.HotKeySketch;
+import com.ensa.service.HotWaletTracker;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /management/hotkeys}: the walets most looked up and transferred between lately, as estimated by the
+ * {@link HotWaletTracker}, to tell how skewed the traffic is and which walets the caches should keep.
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final HotWaletTracker hotWaletTracker;
+
+    public HotKeysEndpoint(HotWaletTracker hotWaletTracker) {
+        this.hotWaletTracker = hotWaletTracker;
+    }
+
+    @ReadOperation
+    public HotKeysDescriptor hotKeys() {
+        return new HotKeysDescriptor(
+            hotWaletTracker.isEnabled(),
+            hotWaletTracker.getSampleRate(),
+            hotWaletTracker.getSampled(),
+            hotWaletTracker.getHotWalets()
+        );
+    }
+
+    /**
+     * The hot walets, by walet id, with the number of ids counted the shares are of.
+     */
+    public static final class HotKeysDescriptor {
+
+        private final boolean enabled;
+
+        private final double sampleRate;
+
+        private final long sampled;
+
+        private final List<HotKeySketch.HotKey> walets;
+
+        HotKeysDescriptor(boolean enabled, double sampleRate, long sampled, List<HotKeySketch.HotKey> walets) {
+            this.enabled = enabled;
+            this.sampleRate = sampleRate;
+            this.sampled = sampled;
+            this.walets = walets;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public long getSampled() {
+            return sampled;
+        }
+
+        public List<HotKeySketch.HotKey> getWalets() {
+            return walets;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ensa.repository;
+
+import com.ensa.domain.BalanceSnapshot;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the BalanceSnapshot entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByWaletIdOrderByLastSequenceDesc(Long waletId);
+}
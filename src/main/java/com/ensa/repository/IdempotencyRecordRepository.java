@@ -0,0 +1,22 @@
+package com.ensa.repository;
+
+import com.ensa.domain.IdempotencyRecord;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the IdempotencyRecord entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Modifying
+    @Query("delete from IdempotencyRecord record where record.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord record where record.id = :id and record.expiresAt <= :now")
+    int deleteExpired(@Param("id") String id, @Param("now") Instant now);
+}
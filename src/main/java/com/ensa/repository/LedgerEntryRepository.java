@@ -0,0 +1,44 @@
+package com.ensa.repository;
+
+import com.ensa.domain.LedgerEntry;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the LedgerEntry entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    Page<LedgerEntry> findAllByWaletIdOrderBySequenceDesc(Long waletId, Pageable pageable);
+
+    /**
+     * Number and sum of the entries of a walet posted after the given sequence number.
+     * Backed by the unique {@code (walet_id, sequence_number)} index, so the cost only depends on the length of the tail.
+     */
+    @Query(
+        "select count(entry) as length, coalesce(sum(entry.amount), 0) as total from LedgerEntry entry" +
+        " where entry.waletId = :waletId and entry.sequence > :afterSequence"
+    )
+    Tail sumTail(@Param("waletId") Long waletId, @Param("afterSequence") long afterSequence);
+
+    /**
+     * The ids of the walets with the most entries posted since the given date, most active first.
+     */
+    @Query(
+        "select entry.waletId from LedgerEntry entry where entry.createdDate >= :since" +
+        " group by entry.waletId order by count(entry) desc, entry.waletId"
+    )
+    List<Long> findMostActiveWaletIds(@Param("since") Instant since, Pageable pageable);
+
+    interface Tail {
+        long getLength();
+
+        long getTotal();
+    }
+}
@@ -0,0 +1,22 @@
+package com.ensa.repository;
+
+import com.ensa.domain.RevokedToken;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the RevokedToken entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    @Query("select token from RevokedToken token where token.revokedAt >= :since and token.expiresAt > :now")
+    List<RevokedToken> findRevokedSince(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RevokedToken token where token.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,7 +1,18 @@
 package com.ensa.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.ensa.domain.Walet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +20,50 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface WaletRepository extends JpaRepository<Walet, Long> {}
+public interface WaletRepository extends WaletRepositoryWithNaturalId, JpaRepository<Walet, Long> {
+    List<Walet> findAllByIdCLient(Long idCLient);
+
+    /**
+     * Loads the walet with a {@code SELECT ... FOR UPDATE}, holding its row lock until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Walet> findWithLockById(Long id);
+
+    /**
+     * Keyset page: the walets whose id is strictly greater than {@code cursor}, in id order.
+     * Unlike an offset page, the cost does not grow with the position in the table.
+     */
+    List<Walet> findByIdGreaterThanOrderByIdAsc(Long cursor, Pageable pageable);
+
+    /**
+     * Walks the whole table with a server-side cursor. Must be consumed inside a transaction, and the
+     * caller is expected to detach each walet once written so the persistence context stays flat.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"),
+        }
+    )
+    Stream<Walet> streamAllByOrderByIdAsc();
+
+    /**
+     * Applies the non-null fields to the walet with the given id in a single {@code UPDATE}, without loading it first.
+     * Being a bulk update, it invalidates the Walet second-level cache region around the transaction, and is not seen
+     * by the {@link com.ensa.config.cache.CacheInvalidationPublisher}, which the caller has to tell.
+     *
+     * @return the number of updated rows, {@code 0} if there is no walet with this id.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(
+        "update Walet walet set walet.idCLient = coalesce(:idCLient, walet.idCLient), walet.login = coalesce(:login, walet.login)," +
+        " walet.password = coalesce(:password, walet.password) where walet.id = :id"
+    )
+    int partialUpdate(
+        @Param("id") Long id,
+        @Param("idCLient") Long idCLient,
+        @Param("login") String login,
+        @Param("password") String password
+    );
+}
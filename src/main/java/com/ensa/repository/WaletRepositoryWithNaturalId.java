@@ -0,0 +1,11 @@
+package com.ensa.repository;
+
+import com.ensa.domain.Walet;
+import java.util.Optional;
+
+/**
+ * Walet lookups that go through the Hibernate natural-id API, so they are answered from the natural-id cache when possible.
+ */
+public interface WaletRepositoryWithNaturalId {
+    Optional<Walet> findOneByLogin(String login);
+}
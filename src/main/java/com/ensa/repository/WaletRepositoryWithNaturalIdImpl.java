@@ -0,0 +1,20 @@
+package com.ensa.repository;
+
+import com.ensa.domain.Walet;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional(readOnly = true)
+public class WaletRepositoryWithNaturalIdImpl implements WaletRepositoryWithNaturalId {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Walet> findOneByLogin(String login) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Walet.class).loadOptional(login);
+    }
+}
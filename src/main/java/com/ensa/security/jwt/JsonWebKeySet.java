@@ -0,0 +1,243 @@
+package com.ensa.security.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.io.Decoders;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URLConnection;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+/**
+ * The public keys of a JSON Web Key Set (RFC 7517), loaded from a file or URL and held in memory, by key id.
+ * <p>
+ * The set is loaded again in the background once it is older than {@code refreshInterval}, when a key is looked up.
+ * A lookup of an unknown key id also has it loaded again in the background at once, so that keys added by a rotation
+ * are found soon after, but no more than once per {@code minRefreshInterval}: tokens with made-up key ids cannot make
+ * the set be loaded on every request. Lookups never wait for the set to be loaded. When loading fails, the keys already
+ * loaded are kept.
+ * <p>
+ * RSA keys and EC keys on the P-256, P-384 and P-521 curves are supported; keys of other types, keys without id and
+ * keys not meant for signatures are skipped.
+ */
+class JsonWebKeySet {
+
+    private static final Map<String, String> CURVES = Map.of("P-256", "secp256r1", "P-384", "secp384r1", "P-521", "secp521r1");
+
+    private final Logger log = LoggerFactory.getLogger(JsonWebKeySet.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Resource resource;
+
+    private final Duration refreshInterval;
+
+    private final Duration minRefreshInterval;
+
+    private final Duration timeout;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Map<String, JsonWebKey> keys = Map.of();
+
+    private volatile Instant loaded = Instant.MIN;
+
+    private volatile Instant lastLoadAttempt = Instant.MIN;
+
+    JsonWebKeySet(String location, Duration refreshInterval, Duration minRefreshInterval, Duration timeout, Executor executor) {
+        this(location, refreshInterval, minRefreshInterval, timeout, executor, Clock.systemUTC());
+    }
+
+    JsonWebKeySet(
+        String location,
+        Duration refreshInterval,
+        Duration minRefreshInterval,
+        Duration timeout,
+        Executor executor,
+        Clock clock
+    ) {
+        this.resource = new DefaultResourceLoader().getResource(location);
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+        this.timeout = timeout;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the key of an id, for an algorithm.
+     *
+     * @param keyId the {@code kid} of the token.
+     * @param algorithm the {@code alg} of the token.
+     * @return the key, or {@code null} if the set has no such key, or if the key is declared for another algorithm.
+     */
+    PublicKey getKey(String keyId, String algorithm) {
+        if (keyId == null) {
+            return null;
+        }
+        Instant now = clock.instant();
+        if (!now.isBefore(loaded.plus(refreshInterval))) {
+            refreshInBackground();
+        }
+        JsonWebKey key = keys.get(keyId);
+        if (key == null) {
+            // Maybe a key added since the set was loaded, found by the next lookups
+            if (!now.isBefore(lastLoadAttempt.plus(minRefreshInterval))) {
+                refreshInBackground();
+            }
+            return null;
+        }
+        if (key.algorithm != null && !key.algorithm.equals(algorithm)) {
+            return null;
+        }
+        return key.publicKey;
+    }
+
+    /**
+     * Loads the set, replacing the keys held so far.
+     *
+     * @return {@code true} if the set was loaded.
+     */
+    boolean refresh() {
+        return load();
+    }
+
+    /**
+     * Has the set loaded by the executor, unless it already is.
+     */
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            log.warn("Could not refresh the JSON Web Key Set: {}", e.getMessage());
+        }
+    }
+
+    private synchronized boolean load() {
+        Instant now = clock.instant();
+        lastLoadAttempt = now;
+        try {
+            keys = parse(read());
+            loaded = now;
+            log.debug("Loaded {} keys from the JSON Web Key Set at {}", keys.size(), resource.getDescription());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load the JSON Web Key Set at {}: {}", resource.getDescription(), e.getMessage());
+            return false;
+        }
+    }
+
+    private JsonNode read() throws IOException {
+        if (!resource.isFile()) {
+            URLConnection connection = resource.getURL().openConnection();
+            connection.setConnectTimeout((int) timeout.toMillis());
+            connection.setReadTimeout((int) timeout.toMillis());
+            try (InputStream in = connection.getInputStream()) {
+                return objectMapper.readTree(in);
+            }
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private Map<String, JsonWebKey> parse(JsonNode jwks) {
+        JsonNode keyNodes = jwks.path("keys");
+        if (!keyNodes.isArray()) {
+            throw new IllegalArgumentException("not a JSON Web Key Set, it has no keys array");
+        }
+        Map<String, JsonWebKey> parsed = new HashMap<>();
+        for (JsonNode jwk : keyNodes) {
+            String keyId = jwk.path("kid").asText(null);
+            if (keyId == null || !"sig".equals(jwk.path("use").asText("sig"))) {
+                continue;
+            }
+            try {
+                PublicKey publicKey = toPublicKey(jwk);
+                if (publicKey != null) {
+                    parsed.put(keyId, new JsonWebKey(publicKey, jwk.path("alg").asText(null)));
+                }
+            } catch (GeneralSecurityException | RuntimeException e) {
+                log.warn("Skipping the invalid key {} of the JSON Web Key Set: {}", keyId, e.getMessage());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        String keyType = jwk.path("kty").asText();
+        if ("RSA".equals(keyType)) {
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(decode(jwk, "n"), decode(jwk, "e"));
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        }
+        if ("EC".equals(keyType)) {
+            String curve = CURVES.get(jwk.path("crv").asText());
+            if (curve == null) {
+                throw new IllegalArgumentException("unsupported curve " + jwk.path("crv").asText());
+            }
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPublicKeySpec spec = new ECPublicKeySpec(
+                new ECPoint(decode(jwk, "x"), decode(jwk, "y")),
+                parameters.getParameterSpec(ECParameterSpec.class)
+            );
+            return KeyFactory.getInstance("EC").generatePublic(spec);
+        }
+        log.debug("Skipping the key {} of the JSON Web Key Set, of unsupported type {}", jwk.path("kid").asText(), keyType);
+        return null;
+    }
+
+    private static BigInteger decode(JsonNode jwk, String member) {
+        String value = jwk.path(member).asText(null);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + member);
+        }
+        return new BigInteger(1, Decoders.BASE64URL.decode(value));
+    }
+
+    private static class JsonWebKey {
+
+        private final PublicKey publicKey;
+
+        private final String algorithm;
+
+        JsonWebKey(PublicKey publicKey, String algorithm) {
+            this.publicKey = publicKey;
+            this.algorithm = algorithm;
+        }
+    }
+}
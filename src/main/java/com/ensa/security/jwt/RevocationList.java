@@ -0,0 +1,148 @@
+package com.ensa.security.jwt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The revocation keys of the revoked tokens that have not expired yet, with a Bloom filter in front of them.
+ * <p>
+ * Almost every token checked is not revoked: the filter answers for those without allocating, from the cached hash
+ * code of the key, and only the keys it matches are looked up in the exact set. Revocations are added to both as they
+ * come. The filter cannot forget a key, so it is rebuilt from the exact set once expired keys have been swept from it,
+ * or once the set outgrows the capacity the filter was sized for, which doubles.
+ */
+class RevocationList {
+
+    /**
+     * Bits per expected key and hash functions giving a false positive rate of about 1%.
+     */
+    private static final int BITS_PER_KEY = 10;
+
+    private static final int HASH_FUNCTIONS = 7;
+
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    RevocationList(int expectedRevocations) {
+        this.filter = new BloomFilter(Math.max(expectedRevocations, 64));
+    }
+
+    /**
+     * @param key the revocation key of the token.
+     * @param now the current time, in milliseconds.
+     * @return whether the token is revoked.
+     */
+    boolean isRevoked(String key, long now) {
+        if (!mightBeRevoked(key)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(key);
+        return expiresAt != null && expiresAt > now;
+    }
+
+    /**
+     * @return {@code false} if the token is not revoked, {@code true} if it may be.
+     */
+    boolean mightBeRevoked(String key) {
+        return filter.mightContain(key);
+    }
+
+    /**
+     * Revokes a token until it expires.
+     *
+     * @param key the revocation key of the token.
+     * @param expiresAt the expiration of the token, in milliseconds.
+     */
+    synchronized void add(String key, long expiresAt) {
+        revoked.merge(key, expiresAt, Math::max);
+        BloomFilter current = filter;
+        if (revoked.size() > current.capacity) {
+            filter = rebuild(current.capacity * 2);
+        } else {
+            current.put(key);
+        }
+    }
+
+    /**
+     * Forgets the revocations of the tokens that have expired, rebuilding the filter without them.
+     *
+     * @return the number of revocations forgotten.
+     */
+    synchronized int removeExpired(long now) {
+        int size = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        int removed = size - revoked.size();
+        if (removed > 0) {
+            filter = rebuild(filter.capacity);
+        }
+        return removed;
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    private BloomFilter rebuild(int capacity) {
+        BloomFilter rebuilt = new BloomFilter(capacity);
+        for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+            rebuilt.put(entry.getKey());
+        }
+        return rebuilt;
+    }
+
+    private static final class BloomFilter {
+
+        private final int capacity;
+
+        private final int bitCount;
+
+        private final AtomicLongArray bits;
+
+        private BloomFilter(int capacity) {
+            this.capacity = capacity;
+            this.bitCount = capacity * BITS_PER_KEY;
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        private void put(String key) {
+            long hash = mix(key.hashCode());
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                long mask = 1L << bit;
+                int index = bit >>> 6;
+                long word;
+                do {
+                    word = bits.get(index);
+                } while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        private boolean mightContain(String key) {
+            long hash = mix(key.hashCode());
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Spreads the 32 bits of the hash code over 64, as two hashes for double hashing (the SplitMix64 finalizer).
+         */
+        private static long mix(int hashCode) {
+            long z = hashCode * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ensa.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a valid token has been revoked before its expiration.
+ */
+public class RevokedJwtException extends JwtException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RevokedJwtException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ensa.security.jwt;
 
+import com.ensa.config.ApplicationProperties;
 import com.ensa.management.SecurityMetersService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
@@ -8,9 +9,15 @@ import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -29,17 +36,46 @@ public class TokenProvider {
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
+    private static final int MAX_AUTHORITY_CLAIMS = 64;
+
+    private static final int MAX_REVOCATION_KEY_LENGTH = 64;
+
     private final Key key;
 
     private final JwtParser jwtParser;
 
+    private final boolean acceptSharedSecret;
+
+    /**
+     * The keys verifying the tokens signed with a private key, {@code null} if none is configured.
+     */
+    private final JsonWebKeySet jsonWebKeySet;
+
+    /**
+     * The thread loading the {@link #jsonWebKeySet} in the background, {@code null} if none is configured.
+     */
+    private final ExecutorService jwksRefreshExecutor;
+
     private final long tokenValidityInMilliseconds;
 
     private final long tokenValidityInMillisecondsForRememberMe;
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final RevocationList revocationList;
+
+    /**
+     * The authorities of each distinct {@code auth} claim, shared by all the tokens carrying it.
+     */
+    private final ConcurrentMap<String, List<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -54,12 +90,43 @@ public class TokenProvider {
             keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         }
         key = Keys.hmacShaKeyFor(keyBytes);
-        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        ApplicationProperties.Jwt.Jwks jwks = applicationProperties.getJwt().getJwks();
+        acceptSharedSecret = jwks.isAcceptSharedSecret();
+        if (!ObjectUtils.isEmpty(jwks.getLocation())) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jwks-refresh-");
+            threadFactory.setDaemon(true);
+            jwksRefreshExecutor = Executors.newSingleThreadExecutor(threadFactory);
+            jsonWebKeySet =
+                new JsonWebKeySet(
+                    jwks.getLocation(),
+                    jwks.getRefreshInterval(),
+                    jwks.getMinRefreshInterval(),
+                    jwks.getTimeout(),
+                    jwksRefreshExecutor
+                );
+            jsonWebKeySet.refresh();
+        } else {
+            jwksRefreshExecutor = null;
+            jsonWebKeySet = null;
+        }
+        jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new KeyResolver()).build();
         this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.verifiedTokenCache = new VerifiedTokenCache(applicationProperties.getJwt().getTokenCacheSize());
+        this.revocationList = new RevocationList(applicationProperties.getJwt().getRevocation().getExpectedRevocations());
+    }
+
+    /**
+     * Stops loading the JSON Web Key Set in the background.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (jwksRefreshExecutor != null) {
+            jwksRefreshExecutor.shutdownNow();
+        }
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -75,6 +142,7 @@ public class TokenProvider {
 
         return Jwts
             .builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(key, SignatureAlgorithm.HS512)
@@ -82,25 +150,81 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Returns the authentication carried by a token, verifying its signature only the first time it is presented.
+     *
+     * @throws JwtException if the token is not valid, or has been revoked.
+     */
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        long now = System.currentTimeMillis();
+        Authentication verified = verifiedTokenCache.get(token, now);
+        if (verified != null) {
+            securityMetersService.trackTokenCacheHit();
+        } else {
+            securityMetersService.trackTokenCacheMiss();
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            // The tokens of the issuers of the JSON Web Key Set may carry no authorities
+            Object authoritiesClaim = claims.get(AUTHORITIES_KEY);
+            List<GrantedAuthority> authorities = getAuthorities(authoritiesClaim != null ? authoritiesClaim.toString() : "");
+            User principal = new User(claims.getSubject(), "", authorities);
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, token, authorities);
+            // The cached authentication, never handed out, carries the revocation key so that it is not computed again
+            authentication.setDetails(getRevocationKey(claims, token));
+            verified = authentication;
+            if (claims.getExpiration() != null) {
+                verifiedTokenCache.put(token, verified, claims.getExpiration().getTime(), now);
+            }
+        }
+        if (revocationList.isRevoked((String) verified.getDetails(), now)) {
+            throw new RevokedJwtException("The token has been revoked");
+        }
+        // Each request gets its own token, the cached one is never handed out as it is mutable
+        return new UsernamePasswordAuthenticationToken(verified.getPrincipal(), token, verified.getAuthorities());
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    /**
+     * Revokes a token on this instance, until it expires.
+     *
+     * @return the revocation, for the other instances to learn about it.
+     * @throws JwtException if the token is not valid, or has no expiration.
+     */
+    public TokenRevocation revoke(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new UnsupportedJwtException("A token without expiration cannot be revoked");
+        }
+        TokenRevocation revocation = new TokenRevocation(getRevocationKey(claims, token), claims.getExpiration().toInstant());
+        addRevocation(revocation);
+        verifiedTokenCache.invalidate(token);
+        return revocation;
+    }
 
-        User principal = new User(claims.getSubject(), "", authorities);
+    /**
+     * Revokes a token on this instance, until it expires, as revoked by another instance.
+     */
+    public void addRevocation(TokenRevocation revocation) {
+        revocationList.add(revocation.getKey(), revocation.getExpiresAt().toEpochMilli());
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    /**
+     * Forgets the revocations of the tokens that have expired since.
+     *
+     * @return the number of revocations forgotten.
+     */
+    public int removeExpiredRevocations() {
+        return revocationList.removeExpired(System.currentTimeMillis());
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Returns the authentication carried by a token, or an empty optional if the token is not valid.
+     */
+    public Optional<Authentication> resolveAuthentication(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
+            return Optional.of(getAuthentication(authToken));
+        } catch (RevokedJwtException e) {
+            this.securityMetersService.trackTokenRevoked();
 
-            return true;
+            log.trace(INVALID_JWT_TOKEN, e);
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +245,60 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    public boolean validateToken(String authToken) {
+        return resolveAuthentication(authToken).isPresent();
+    }
+
+    /**
+     * @return the {@code jti} of the token, or its SHA-256 when it has none that fits.
+     */
+    private static String getRevocationKey(Claims claims, String token) {
+        String id = claims.getId();
+        return id != null && id.length() <= MAX_REVOCATION_KEY_LENGTH ? id : VerifiedTokenCache.hash(token);
+    }
+
+    /**
+     * Picks the key of a token from its header: the shared secret for HS512, the key of its {@code kid} in the JSON Web
+     * Key Set for the algorithms signing with a private key.
+     */
+    private class KeyResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+            if (algorithm.isHmac()) {
+                if (!acceptSharedSecret) {
+                    throw new UnsupportedJwtException("Tokens signed with the shared secret are not accepted");
+                }
+                return key;
+            }
+            if (jsonWebKeySet == null) {
+                throw new UnsupportedJwtException("No JSON Web Key Set verifies " + algorithm.getValue() + " tokens");
+            }
+            Key publicKey = jsonWebKeySet.getKey(header.getKeyId(), algorithm.getValue());
+            if (publicKey == null) {
+                throw new SignatureException("No key of the JSON Web Key Set has the id " + header.getKeyId());
+            }
+            return publicKey;
+        }
+    }
+
+    private List<GrantedAuthority> getAuthorities(String authoritiesClaim) {
+        List<GrantedAuthority> authorities = authoritiesByClaim.get(authoritiesClaim);
+        if (authorities == null) {
+            authorities =
+                Arrays
+                    .stream(authoritiesClaim.split(","))
+                    .filter(auth -> !auth.trim().isEmpty())
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toUnmodifiableList());
+            if (authoritiesByClaim.size() < MAX_AUTHORITY_CLAIMS) {
+                authoritiesByClaim.putIfAbsent(authoritiesClaim, authorities);
+            }
+        }
+        return authorities;
     }
 }
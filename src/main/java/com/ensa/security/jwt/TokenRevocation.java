@@ -0,0 +1,29 @@
+package com.ensa.security.jwt;
+
+import java.time.Instant;
+
+/**
+ * The revocation of a token: the key it is known by, and the time after which it expires anyway.
+ */
+public class TokenRevocation {
+
+    private final String key;
+
+    private final Instant expiresAt;
+
+    public TokenRevocation(String key, Instant expiresAt) {
+        this.key = key;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return the {@code jti} of the token, or the SHA-256 of the token when it has none.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
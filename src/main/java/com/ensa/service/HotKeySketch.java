@@ -0,0 +1,204 @@
+package com.ensa.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates how often each key is seen with a count-min sketch, and keeps the keys seen the most.
+ * <p>
+ * Recording a key takes no lock: it is counted, with a probability of {@code sampleRate}, in one counter of each row
+ * of the sketch, picked by a hash of the row; its estimate is the lowest of those counters, which can only
+ * overestimate it. The top keys are held in a set, along with the lowest estimate among them: only a key estimated
+ * above it takes the lock, to replace the lowest key, which is rare once the top has settled. The counts are halved by
+ * {@link #decay()}, for the top to follow the traffic: the keys whose counts decay to nothing leave it.
+ */
+public class HotKeySketch {
+
+    private final double sampleRate;
+
+    private final int width;
+
+    private final int depth;
+
+    private final int top;
+
+    private final AtomicLongArray counters;
+
+    private final LongAdder sampled = new LongAdder();
+
+    private final Set<Long> hotKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The lowest estimate of the top keys when it was last computed, {@code 0} until the top is full; the estimates of
+     * the top keys only grow from it until the next decay.
+     */
+    private volatile long threshold;
+
+    /**
+     * @param sampleRate the share of the keys recorded that are counted.
+     * @param width the counters per row, rounded up to a power of two.
+     * @param depth the rows.
+     * @param top the number of top keys kept.
+     */
+    public HotKeySketch(double sampleRate, int width, int depth, int top) {
+        this.sampleRate = sampleRate;
+        this.width = width <= 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.top = top;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    public void record(long key) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        sampled.increment();
+        long hash = mix(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * width + ((hash1 + row * hash2) & (width - 1))));
+        }
+        if (estimate > threshold && !hotKeys.contains(key)) {
+            admit(key, estimate);
+        }
+    }
+
+    /**
+     * @return the estimated number of times the key was counted since, halved at each decay.
+     */
+    public long estimate(long key) {
+        long hash = mix(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + ((hash1 + row * hash2) & (width - 1))));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return whether the key is one of the top keys.
+     */
+    public boolean isHot(long key) {
+        return hotKeys.contains(key);
+    }
+
+    /**
+     * @return the top keys seen since their counts last decayed to nothing, the most seen first.
+     */
+    public List<HotKey> top() {
+        long total = sampled.sum();
+        return hotKeys
+            .stream()
+            .map(key -> new HotKey(key, estimate(key), total, sampleRate))
+            .filter(hotKey -> hotKey.count > 0)
+            .sorted(Comparator.comparingLong(HotKey::getCount).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of keys counted, halved at each decay.
+     */
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Halves the counts, the increments made meanwhile being halved or not, and drops the top keys whose counts decayed
+     * to nothing: they are no longer hot.
+     */
+    public synchronized void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        long total = sampled.sum();
+        sampled.add((total >>> 1) - total);
+        threshold = hotKeys.removeIf(key -> estimate(key) == 0) ? 0 : threshold >>> 1;
+    }
+
+    private synchronized void admit(long key, long estimate) {
+        if (hotKeys.contains(key)) {
+            return;
+        }
+        if (hotKeys.size() < top) {
+            hotKeys.add(key);
+            if (hotKeys.size() == top) {
+                threshold = hotKeys.stream().mapToLong(this::estimate).min().orElse(0);
+            }
+            return;
+        }
+        Long lowestKey = null;
+        long lowest = Long.MAX_VALUE;
+        long secondLowest = Long.MAX_VALUE;
+        for (Long hotKey : hotKeys) {
+            long hotKeyEstimate = estimate(hotKey);
+            if (hotKeyEstimate < lowest) {
+                secondLowest = lowest;
+                lowest = hotKeyEstimate;
+                lowestKey = hotKey;
+            } else if (hotKeyEstimate < secondLowest) {
+                secondLowest = hotKeyEstimate;
+            }
+        }
+        if (estimate > lowest) {
+            hotKeys.remove(lowestKey);
+            hotKeys.add(key);
+            threshold = Math.min(estimate, secondLowest);
+        } else {
+            threshold = lowest;
+        }
+    }
+
+    /**
+     * Spreads the bits of the key over two 32 bits hashes, for double hashing (the SplitMix64 finalizer).
+     */
+    private static long mix(long key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A top key, with its estimated count scaled back from the sample rate, and its share of the keys counted.
+     */
+    public static final class HotKey {
+
+        private final long key;
+
+        private final long count;
+
+        private final double share;
+
+        private HotKey(long key, long count, long total, double sampleRate) {
+            this.key = key;
+            this.count = Math.round(count / Math.min(sampleRate, 1));
+            this.share = total == 0 ? 0 : Math.min(1, (double) count / total);
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getShare() {
+            return share;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import java.util.List;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component finding the walets most looked up and transferred between, with a {@link HotKeySketch} of their ids.
+ * <p>
+ * The hot walets are listed by {@code /management/hotkeys}, and are the last to be evicted from the cache regions with
+ * {@code pin-hot-keys}, see {@code application.cache.regions}. Counting is cheap enough to be done on the request
+ * threads, see {@code HotKeySketchBenchmark}.
+ * <p>
+ * A {@link Component} rather than a service, for the {@code LoggingAspect} not to time it: {@link #isHot(long)} is
+ * called by the eviction advisor of the cache for each entry it samples.
+ */
+@Component
+public class HotWaletTracker {
+
+    private final ApplicationProperties.HotKeys properties;
+
+    private final HotKeySketch sketch;
+
+    private final TaskScheduler taskScheduler;
+
+    public HotWaletTracker(ApplicationProperties applicationProperties, TaskScheduler taskScheduler) {
+        this.properties = applicationProperties.getHotKeys();
+        this.sketch = new HotKeySketch(properties.getSampleRate(), properties.getWidth(), properties.getDepth(), properties.getTop());
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Counts a walet id as seen, if tracking is enabled.
+     *
+     * @param waletId the id of the walet, ignored if {@code null}.
+     */
+    public void record(Long waletId) {
+        if (properties.isEnabled() && waletId != null) {
+            sketch.record(waletId);
+        }
+    }
+
+    /**
+     * @return whether the walet is one of the most seen lately.
+     */
+    public boolean isHot(long waletId) {
+        return sketch.isHot(waletId);
+    }
+
+    /**
+     * @return the walets most seen lately, the most seen first.
+     */
+    public List<HotKeySketch.HotKey> getHotWalets() {
+        return sketch.top();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public long getSampled() {
+        return sketch.getSampled();
+    }
+
+    public double getSampleRate() {
+        return sketch.getSampleRate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleDecay() {
+        if (properties.isEnabled()) {
+            taskScheduler.scheduleAtFixedRate(sketch::decay, properties.getDecayInterval());
+        }
+    }
+}
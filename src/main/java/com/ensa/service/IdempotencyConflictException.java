@@ -0,0 +1,14 @@
+package com.ensa.service;
+
+/**
+ * Thrown when a request with an {@code Idempotency-Key} is still being executed elsewhere and its response cannot be
+ * awaited.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
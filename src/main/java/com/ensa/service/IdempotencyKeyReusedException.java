@@ -0,0 +1,13 @@
+package com.ensa.service;
+
+/**
+ * Thrown when an {@code Idempotency-Key} already used for a request is sent again with a different request.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
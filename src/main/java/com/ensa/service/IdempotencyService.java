@@ -0,0 +1,271 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.IdempotencyRecord;
+import com.ensa.repository.IdempotencyRecordRepository;
+import com.ensa.service.dto.IdempotentResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service recording the responses of requests sent with an {@code Idempotency-Key}.
+ * <p>
+ * Completed responses are kept in a bounded in-memory LRU in front of the {@link IdempotencyRecord} table, so that a
+ * retry is usually answered without touching the database. A key is claimed with an in-memory future first, on which
+ * duplicates arriving on this instance wait, then with an insert into the table, which fails for every other instance.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeToLive;
+
+    private final Duration leaseTime;
+
+    private final Duration waitTimeout;
+
+    private final Map<String, IdempotentResponseDTO> completed;
+
+    private final ConcurrentMap<String, CompletableFuture<IdempotentResponseDTO>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Removes the expired record of a key, reads the current one and inserts the claim in a single transaction.
+     */
+    private final TransactionTemplate claimTransaction;
+
+    public IdempotencyService(
+        IdempotencyRecordRepository idempotencyRecordRepository,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ApplicationProperties.Idempotency properties = applicationProperties.getIdempotency();
+        this.timeToLive = properties.getTimeToLive();
+        this.leaseTime = properties.getLeaseTime();
+        this.waitTimeout = properties.getWaitTimeout();
+        int maxEntries = properties.getMaxEntries();
+        this.completed =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotentResponseDTO> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+    }
+
+    /**
+     * Returns the response recorded for the key, waiting for it if a request with the same key is in flight on this
+     * instance, or claims the key for the caller.
+     * <p>
+     * When this returns an empty optional, the caller owns the key and must end with either {@link #complete} or
+     * {@link #release}.
+     *
+     * @param key the scoped key, see {@link com.ensa.domain.IdempotencyRecord#getId()}.
+     * @param requestHash the fingerprint of the request.
+     * @return the response to replay, or empty if the caller has claimed the key.
+     * @throws IdempotencyKeyReusedException if the key was used for a different request.
+     * @throws IdempotencyConflictException if the key is claimed by another instance, or the wait timed out.
+     */
+    public Optional<IdempotentResponseDTO> claimOrReplay(String key, String requestHash) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            IdempotentResponseDTO response = getCompleted(key);
+            if (response != null) {
+                return Optional.of(checkHash(response, requestHash));
+            }
+            CompletableFuture<IdempotentResponseDTO> claim = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponseDTO> current = inFlight.putIfAbsent(key, claim);
+            if (current != null) {
+                response = await(current);
+                if (response != null) {
+                    return Optional.of(checkHash(response, requestHash));
+                }
+                // The first execution failed and released the key, try to claim it ourselves
+                continue;
+            }
+            try {
+                response = claimInDatabase(key, requestHash);
+            } catch (RuntimeException e) {
+                settle(key, null);
+                throw e;
+            }
+            if (response == null) {
+                return Optional.empty();
+            }
+            remember(key, response);
+            settle(key, response);
+            return Optional.of(checkHash(response, requestHash));
+        }
+        throw new IdempotencyConflictException("Could not claim the idempotency key");
+    }
+
+    /**
+     * Records the response of the request that claimed the key, and hands it to the duplicates waiting for it.
+     */
+    public void complete(String key, IdempotentResponseDTO response) {
+        IdempotentResponseDTO recorded = response.expiringAt(Instant.now().plus(timeToLive));
+        try {
+            IdempotencyRecord record = idempotencyRecordRepository
+                .findById(key)
+                .orElseGet(() -> new IdempotencyRecord().id(key).createdDate(Instant.now()))
+                .requestHash(recorded.getRequestHash())
+                .status(recorded.getStatus())
+                .contentType(recorded.getContentType())
+                .headers(objectMapper.writeValueAsString(recorded.getHeaders()))
+                .body(recorded.getBody())
+                .expiresAt(recorded.getExpiresAt());
+            idempotencyRecordRepository.save(record);
+            remember(key, recorded);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not record the response for an idempotency key: {}", e.getMessage());
+        } finally {
+            settle(key, recorded);
+        }
+    }
+
+    /**
+     * Gives up the key claimed by a request that failed, so that a retry executes it again.
+     */
+    public void release(String key) {
+        try {
+            idempotencyRecordRepository.deleteById(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not release an idempotency key, it will be claimable again when its lease ends: {}", e.getMessage());
+        } finally {
+            settle(key, null);
+        }
+    }
+
+    /**
+     * Expired records are purged every hour.
+     * <p>
+     * This is scheduled to get fired at the 15th minute of every hour.
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    @Transactional
+    public void removeExpiredRecords() {
+        int removed = idempotencyRecordRepository.deleteExpired(Instant.now());
+        log.debug("Removed {} expired idempotency records", removed);
+    }
+
+    /**
+     * Claims the key with an insert, which fails if another instance claimed it meanwhile.
+     *
+     * @return the recorded response, or {@code null} if the key was claimed.
+     */
+    private IdempotentResponseDTO claimInDatabase(String key, String requestHash) {
+        try {
+            return claimTransaction.execute(status -> {
+                Instant now = Instant.now();
+                idempotencyRecordRepository.deleteExpired(key, now);
+                Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(key);
+                if (existing.isPresent()) {
+                    if (existing.get().getStatus() == null) {
+                        throw new IdempotencyConflictException("A request with the same idempotency key is in progress");
+                    }
+                    return toResponse(existing.get());
+                }
+                idempotencyRecordRepository.saveAndFlush(
+                    new IdempotencyRecord().id(key).requestHash(requestHash).createdDate(now).expiresAt(now.plus(leaseTime))
+                );
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyConflictException("A request with the same idempotency key is in progress");
+        }
+    }
+
+    private IdempotentResponseDTO toResponse(IdempotencyRecord record) {
+        Map<String, List<String>> headers;
+        try {
+            headers = record.getHeaders() == null ? Map.of() : objectMapper.readValue(record.getHeaders(), HEADERS_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not read the recorded headers of an idempotency key: {}", e.getMessage());
+            headers = Map.of();
+        }
+        return new IdempotentResponseDTO(
+            record.getRequestHash(),
+            record.getStatus(),
+            record.getContentType(),
+            headers,
+            record.getBody(),
+            record.getExpiresAt()
+        );
+    }
+
+    private IdempotentResponseDTO await(CompletableFuture<IdempotentResponseDTO> current) {
+        try {
+            return current.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for a request with the same idempotency key");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IdempotencyConflictException("A request with the same idempotency key is in progress");
+        }
+    }
+
+    private IdempotentResponseDTO checkHash(IdempotentResponseDTO response, String requestHash) {
+        if (!response.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("The idempotency key was already used for a different request");
+        }
+        return response;
+    }
+
+    private IdempotentResponseDTO getCompleted(String key) {
+        synchronized (completed) {
+            IdempotentResponseDTO response = completed.get(key);
+            if (response != null && !response.getExpiresAt().isAfter(Instant.now())) {
+                completed.remove(key);
+                return null;
+            }
+            return response;
+        }
+    }
+
+    private void remember(String key, IdempotentResponseDTO response) {
+        synchronized (completed) {
+            completed.put(key, response);
+        }
+    }
+
+    private void settle(String key, IdempotentResponseDTO response) {
+        CompletableFuture<IdempotentResponseDTO> claim = inFlight.remove(key);
+        if (claim != null) {
+            claim.complete(response);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ensa.service;
+
+/**
+ * Thrown when a journal would bring a walet that cannot be overdrawn below zero.
+ */
+public class InsufficientFundsException extends LedgerException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InsufficientFundsException(Long waletId) {
+        super("Insufficient funds on walet " + waletId);
+    }
+}
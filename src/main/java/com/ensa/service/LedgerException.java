@@ -0,0 +1,13 @@
+package com.ensa.service;
+
+/**
+ * Thrown when a journal cannot be posted to the ledger.
+ */
+public class LedgerException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LedgerException(String message) {
+        super(message);
+    }
+}
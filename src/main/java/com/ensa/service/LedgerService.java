@@ -0,0 +1,180 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.BalanceSnapshot;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.repository.BalanceSnapshotRepository;
+import com.ensa.repository.LedgerEntryRepository;
+import com.ensa.repository.WaletRepository;
+import com.ensa.service.dto.BalanceDTO;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for the double-entry ledger of the walets.
+ * <p>
+ * A journal is a set of {@link LedgerEntry} legs summing to zero, posted atomically. A walet balance is never stored:
+ * it is the latest {@link BalanceSnapshot} of the walet plus the entries posted after it. A new snapshot is written
+ * every {@code application.ledger.snapshot-interval} entries, which bounds the tail that a balance query has to sum.
+ */
+@Service
+@Transactional
+public class LedgerService {
+
+    private final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private final WaletRepository waletRepository;
+
+    private final HotWaletTracker hotWaletTracker;
+
+    private final int snapshotInterval;
+
+    public LedgerService(
+        LedgerEntryRepository ledgerEntryRepository,
+        BalanceSnapshotRepository balanceSnapshotRepository,
+        WaletRepository waletRepository,
+        HotWaletTracker hotWaletTracker,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.waletRepository = waletRepository;
+        this.hotWaletTracker = hotWaletTracker;
+        this.snapshotInterval = applicationProperties.getLedger().getSnapshotInterval();
+    }
+
+    /**
+     * Posts a balanced journal, which may bring the walets it debits below zero.
+     * <p>
+     * The walets involved are locked with {@code SELECT ... FOR UPDATE} in ascending id order, so concurrent journals
+     * cannot deadlock and the entries of each walet get consecutive sequence numbers.
+     *
+     * @param legs the legs of the journal, with their walet id, amount and optional description.
+     * @return the persisted entries.
+     * @throws LedgerException if the journal is not balanced or refers to an unknown walet.
+     */
+    public List<LedgerEntry> post(List<LedgerEntry> legs) {
+        return post(legs, true);
+    }
+
+    /**
+     * Posts a balanced journal, optionally refusing to bring a debited walet below zero.
+     *
+     * @param legs the legs of the journal, with their walet id, amount and optional description.
+     * @param allowOverdraft whether the journal may leave a walet it debits with a negative balance.
+     * @return the persisted entries.
+     * @throws InsufficientFundsException if {@code allowOverdraft} is {@code false} and a debited walet would go below zero.
+     * @throws LedgerException if the journal is not balanced or refers to an unknown walet.
+     */
+    public List<LedgerEntry> post(List<LedgerEntry> legs, boolean allowOverdraft) {
+        log.debug("Request to post journal : {}", legs);
+        checkBalanced(legs);
+
+        Map<Long, List<LedgerEntry>> legsByWalet = legs
+            .stream()
+            .collect(Collectors.groupingBy(LedgerEntry::getWaletId, TreeMap::new, Collectors.toList()));
+        legsByWalet.keySet().forEach(this::lock);
+        // Once locked, the walets are known to exist
+        legsByWalet.keySet().forEach(hotWaletTracker::record);
+
+        UUID journalId = UUID.randomUUID();
+        Instant now = Instant.now();
+        List<LedgerEntry> result = new ArrayList<>(legs.size());
+        legsByWalet.forEach((waletId, waletLegs) -> {
+            BalanceDTO balance = getBalanceOf(waletId);
+            long newBalance = balance.getBalance();
+            for (LedgerEntry leg : waletLegs) {
+                newBalance = Math.addExact(newBalance, leg.getAmount());
+            }
+            if (!allowOverdraft && newBalance < 0 && newBalance < balance.getBalance()) {
+                throw new InsufficientFundsException(waletId);
+            }
+            long sequence = balance.getLastSequence();
+            for (LedgerEntry leg : waletLegs) {
+                leg.sequence(++sequence).journalId(journalId).createdDate(now);
+                result.add(ledgerEntryRepository.save(leg));
+            }
+            if (balance.getLastSequence() / snapshotInterval != sequence / snapshotInterval) {
+                snapshot(waletId, sequence, newBalance, now);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get the balance of a walet.
+     *
+     * @param waletId the id of the walet.
+     * @return the balance, or empty if the walet does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<BalanceDTO> getBalance(Long waletId) {
+        log.debug("Request to get the balance of Walet : {}", waletId);
+        return waletRepository.findById(waletId).map(walet -> getBalanceOf(waletId));
+    }
+
+    /**
+     * Get the entries of a walet, latest first.
+     *
+     * @param waletId the id of the walet.
+     * @param pageable the pagination information.
+     * @return the page of entries.
+     */
+    @Transactional(readOnly = true)
+    public Page<LedgerEntry> findAllByWalet(Long waletId, Pageable pageable) {
+        log.debug("Request to get the LedgerEntries of Walet : {}", waletId);
+        return ledgerEntryRepository.findAllByWaletIdOrderBySequenceDesc(waletId, pageable);
+    }
+
+    private void checkBalanced(List<LedgerEntry> legs) {
+        if (legs.size() < 2) {
+            throw new LedgerException("A journal needs at least two legs");
+        }
+        long total = 0;
+        for (LedgerEntry leg : legs) {
+            if (leg.getWaletId() == null || leg.getAmount() == null || leg.getAmount() == 0) {
+                throw new LedgerException("Each leg needs a walet and a non-zero amount");
+            }
+            total = Math.addExact(total, leg.getAmount());
+        }
+        if (total != 0) {
+            throw new LedgerException("The legs of a journal must sum to zero");
+        }
+    }
+
+    private void lock(Long waletId) {
+        if (waletRepository.findWithLockById(waletId).isEmpty()) {
+            throw new LedgerException("Walet " + waletId + " not found");
+        }
+    }
+
+    private BalanceDTO getBalanceOf(Long waletId) {
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findFirstByWaletIdOrderByLastSequenceDesc(waletId);
+        long snapshotSequence = snapshot.map(BalanceSnapshot::getLastSequence).orElse(0L);
+        long snapshotBalance = snapshot.map(BalanceSnapshot::getBalance).orElse(0L);
+        LedgerEntryRepository.Tail tail = ledgerEntryRepository.sumTail(waletId, snapshotSequence);
+        // Sequence numbers have no gaps, so the tail length tells where the walet stands
+        return new BalanceDTO(waletId, Math.addExact(snapshotBalance, tail.getTotal()), snapshotSequence + tail.getLength());
+    }
+
+    private void snapshot(Long waletId, long lastSequence, long balance, Instant now) {
+        log.debug("Writing balance snapshot of Walet {} at sequence {}", waletId, lastSequence);
+        balanceSnapshotRepository.save(new BalanceSnapshot().waletId(waletId).lastSequence(lastSequence).balance(balance).createdDate(now));
+    }
+}
@@ -0,0 +1,70 @@
+package com.ensa.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by an unbounded set of {@code long} keys.
+ * <p>
+ * The stripes of the keys are always taken in ascending stripe order, so two callers locking overlapping keys cannot
+ * deadlock. Keys that hash to different stripes never contend, whatever their traffic.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    /**
+     * @param stripeCount the number of stripes, rounded up to a power of two.
+     */
+    public StripedLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Acquires the stripes of all the given keys, waiting at most {@code timeout} overall.
+     *
+     * @return a handle releasing the stripes when closed, or {@code null} if they could not all be acquired in time.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public Held tryAcquire(Duration timeout, long... keys) throws InterruptedException {
+        int[] indexes = Arrays.stream(keys).mapToInt(this::indexOf).sorted().distinct().toArray();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int i = 0; i < indexes.length; i++) {
+            if (!stripes[indexes[i]].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                release(indexes, i);
+                return null;
+            }
+        }
+        return () -> release(indexes, indexes.length);
+    }
+
+    int indexOf(long key) {
+        // Spread the bits so that sequential ids do not map to neighbouring stripes only
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void release(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    /**
+     * The stripes held by a successful {@link #tryAcquire}.
+     */
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.RevokedToken;
+import com.ensa.repository.RevokedTokenRepository;
+import com.ensa.security.jwt.TokenProvider;
+import com.ensa.security.jwt.TokenRevocation;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service revoking tokens before their expiration.
+ * <p>
+ * The {@link RevokedToken} table is the source of truth of the revocations. Each instance checks the tokens it is
+ * presented against the revocations it holds in memory, see {@link TokenProvider}, and loads the rows revoked through
+ * the other instances every {@code application.jwt.revocation.sync-interval}.
+ */
+@Service
+public class TokenRevocationService {
+
+    /**
+     * How far back before the previous load rows are loaded again, so that rows committed late, or revoked by an
+     * instance whose clock is behind, are not missed.
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final TokenProvider tokenProvider;
+
+    private final TaskScheduler taskScheduler;
+
+    private final Duration syncInterval;
+
+    private Instant lastSynchronized;
+
+    public TokenRevocationService(
+        RevokedTokenRepository revokedTokenRepository,
+        TokenProvider tokenProvider,
+        TaskScheduler taskScheduler,
+        ApplicationProperties applicationProperties
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenProvider = tokenProvider;
+        this.taskScheduler = taskScheduler;
+        this.syncInterval = applicationProperties.getJwt().getRevocation().getSyncInterval();
+    }
+
+    /**
+     * Revokes a token, on all instances, until it expires.
+     *
+     * @param token the token.
+     * @throws io.jsonwebtoken.JwtException if the token is not valid.
+     */
+    @Transactional
+    public void revoke(String token) {
+        TokenRevocation revocation = tokenProvider.revoke(token);
+        revokedTokenRepository.save(
+            new RevokedToken().id(revocation.getKey()).revokedAt(Instant.now()).expiresAt(revocation.getExpiresAt())
+        );
+        log.debug("Revoked the token {} until {}", revocation.getKey(), revocation.getExpiresAt());
+    }
+
+    /**
+     * Loads the revocations made since the previous load, all the unexpired ones the first time.
+     *
+     * @return the number of revocations loaded.
+     */
+    public synchronized int synchronize() {
+        Instant now = Instant.now();
+        Instant since = lastSynchronized == null ? Instant.EPOCH : lastSynchronized.minus(SYNC_OVERLAP);
+        List<RevokedToken> revokedTokens = revokedTokenRepository.findRevokedSince(since, now);
+        for (RevokedToken revokedToken : revokedTokens) {
+            tokenProvider.addRevocation(new TokenRevocation(revokedToken.getId(), revokedToken.getExpiresAt()));
+        }
+        lastSynchronized = now;
+        return revokedTokens.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleSynchronization() {
+        taskScheduler.scheduleWithFixedDelay(
+            () -> {
+                try {
+                    synchronize();
+                } catch (RuntimeException e) {
+                    log.warn("Could not load the revoked tokens: {}", e.getMessage());
+                }
+            },
+            syncInterval
+        );
+    }
+
+    /**
+     * The revocations of the tokens that have expired since are purged every hour.
+     * <p>
+     * This is scheduled to get fired at the 45th minute of every hour.
+     */
+    @Scheduled(cron = "0 45 * * * ?")
+    @Transactional
+    public void removeExpiredRevocations() {
+        int removed = revokedTokenRepository.deleteExpired(Instant.now());
+        int forgotten = tokenProvider.removeExpiredRevocations();
+        log.debug("Removed {} expired revoked tokens, {} of them from memory", removed, forgotten);
+    }
+}
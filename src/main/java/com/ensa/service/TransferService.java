@@ -0,0 +1,129 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.domain.Walet;
+import com.ensa.repository.WaletRepository;
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.security.SecurityUtils;
+import com.ensa.service.dto.TransferDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service moving funds between two walets.
+ * <p>
+ * Each transfer first takes the in-JVM {@link StripedLock} stripes of its two walets, then posts its journal through
+ * {@link LedgerService}, which row-locks the walets in ascending id order. Two transfers of this node that share a walet
+ * also share its stripe, so they queue in memory instead of on database row locks, while transfers on unrelated walets
+ * run in parallel; the ascending row-lock order keeps transfers from different nodes deadlock-free.
+ * <p>
+ * Users may only transfer from their own walets, the ones with their login; administrators from any walet.
+ * <p>
+ * This service is deliberately not transactional: the stripes are held around the whole {@link LedgerService}
+ * transaction, up to and including its commit.
+ */
+@Service
+public class TransferService {
+
+    private final Logger log = LoggerFactory.getLogger(TransferService.class);
+
+    private final LedgerService ledgerService;
+
+    private final WaletRepository waletRepository;
+
+    private final StripedLock stripedLock;
+
+    private final Duration lockTimeout;
+
+    private final Timer transferTimer;
+
+    private final Counter lockTimeoutCounter;
+
+    public TransferService(
+        LedgerService ledgerService,
+        WaletRepository waletRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.ledgerService = ledgerService;
+        this.waletRepository = waletRepository;
+        this.stripedLock = new StripedLock(applicationProperties.getTransfer().getLockStripes());
+        this.lockTimeout = applicationProperties.getTransfer().getLockTimeout();
+        this.transferTimer = Timer.builder("walet.transfer").description("Time taken to post a transfer").register(meterRegistry);
+        this.lockTimeoutCounter = Counter
+            .builder("walet.transfer.lock.timeouts")
+            .description("Transfers rejected because the locks of their walets could not be acquired in time")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Debits {@code amount} from one walet and credits it to another, atomically.
+     *
+     * @param transfer the transfer to execute.
+     * @return the transfer, with the id of the journal that was posted.
+     * @throws InsufficientFundsException if the debited walet does not hold {@code amount}.
+     * @throws LedgerException if the transfer is not valid or refers to an unknown walet.
+     * @throws AccessDeniedException if the debited walet does not belong to the current user.
+     * @throws CannotAcquireLockException if the walets could not be locked within {@code application.transfer.lock-timeout}.
+     */
+    public TransferDTO transfer(TransferDTO transfer) {
+        log.debug("Request to transfer : {}", transfer);
+        if (Objects.equals(transfer.getFromWaletId(), transfer.getToWaletId())) {
+            throw new LedgerException("Cannot transfer from a walet to itself");
+        }
+        if (transfer.getAmount() == null || transfer.getAmount() <= 0) {
+            throw new LedgerException("The amount of a transfer must be positive");
+        }
+        checkOwner(transfer.getFromWaletId());
+        return transferTimer.record(() -> {
+            try (StripedLock.Held held = acquire(transfer.getFromWaletId(), transfer.getToWaletId())) {
+                List<LedgerEntry> entries = ledgerService.post(
+                    List.of(
+                        new LedgerEntry().waletId(transfer.getFromWaletId()).amount(-transfer.getAmount()).description(transfer.getDescription()),
+                        new LedgerEntry().waletId(transfer.getToWaletId()).amount(transfer.getAmount()).description(transfer.getDescription())
+                    ),
+                    false
+                );
+                transfer.setJournalId(entries.get(0).getJournalId());
+                return transfer;
+            }
+        });
+    }
+
+    private void checkOwner(Long waletId) {
+        if (SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return;
+        }
+        String login = SecurityUtils.getCurrentUserLogin().orElse(null);
+        // An unknown walet is denied as well, for its id not to tell whether it exists
+        boolean owned = login != null && waletRepository.findById(waletId).map(Walet::getLogin).filter(login::equals).isPresent();
+        if (!owned) {
+            throw new AccessDeniedException("Walet " + waletId + " does not belong to the current user");
+        }
+    }
+
+    private StripedLock.Held acquire(long fromWaletId, long toWaletId) {
+        StripedLock.Held held;
+        try {
+            held = stripedLock.tryAcquire(lockTimeout, fromWaletId, toWaletId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while locking walets " + fromWaletId + " and " + toWaletId, e);
+        }
+        if (held == null) {
+            lockTimeoutCounter.increment();
+            throw new CannotAcquireLockException("Timed out locking walets " + fromWaletId + " and " + toWaletId);
+        }
+        return held;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ensa.service;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.Walet;
+import com.ensa.repository.LedgerEntryRepository;
+import com.ensa.repository.WaletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads the most used walets into the Walet second-level cache region at startup, when
+ * {@code application.cache.warm-up.enabled}, so that the first requests after a deploy do not all go to the database.
+ * <p>
+ * The walets with the most ledger entries over the {@code activity-window} are loaded, in chunks run in parallel on the
+ * {@code taskExecutor}, each in its own read-only transaction. As an {@link ApplicationRunner}, the warm-up finishes
+ * before the readiness state turns to accepting traffic, unless it takes longer than its {@code timeout}. Its duration
+ * and the walets it loaded are recorded in the {@value #TIMER_NAME} meters.
+ */
+@Service
+public class WaletCacheWarmUp implements ApplicationRunner {
+
+    static final String TIMER_NAME = "cache.warm-up";
+
+    private static final String REGION = Walet.class.getName();
+
+    private final Logger log = LoggerFactory.getLogger(WaletCacheWarmUp.class);
+
+    private final WaletRepository waletRepository;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.Cache.WarmUp properties;
+
+    private final Timer timer;
+
+    private final Counter loadedCounter;
+
+    public WaletCacheWarmUp(
+        WaletRepository waletRepository,
+        LedgerEntryRepository ledgerEntryRepository,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.waletRepository = waletRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getCache().getWarmUp();
+        this.timer =
+            Timer
+                .builder(TIMER_NAME)
+                .description("Time taken to warm the cache up at startup")
+                .tag("cache", REGION)
+                .register(meterRegistry);
+        this.loadedCounter =
+            Counter
+                .builder(TIMER_NAME + ".loaded")
+                .description("Entries loaded into the cache by its warm-up")
+                .tag("cache", REGION)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Loads the most used walets, waiting for at most the {@code timeout}.
+     *
+     * @return the number of walets loaded by then.
+     */
+    public long warmUp() {
+        long start = System.nanoTime();
+        LongAdder loaded = new LongAdder();
+        Instant since = Instant.now().minus(properties.getActivityWindow());
+        List<Long> ids = readOnlyTransaction.execute(status ->
+            ledgerEntryRepository.findMostActiveWaletIds(since, PageRequest.of(0, properties.getMaxWalets()))
+        );
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += properties.getChunkSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(from + properties.getChunkSize(), ids.size()));
+            chunks.add(CompletableFuture.runAsync(() -> loadChunk(chunk, loaded), taskExecutor));
+        }
+        try {
+            CompletableFuture
+                .allOf(chunks.toArray(new CompletableFuture[0]))
+                .get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("The warm-up of the {} cache did not finish within {}, going on without it", REGION, properties.getTimeout());
+        } catch (ExecutionException e) {
+            log.warn("The warm-up of the {} cache failed: {}", REGION, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Warmed up the {} cache with {} walets in {} ms", REGION, loaded.sum(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return loaded.sum();
+    }
+
+    private void loadChunk(List<Long> ids, LongAdder loaded) {
+        int count = readOnlyTransaction.execute(status -> waletRepository.findAllById(ids).size());
+        loaded.add(count);
+        loadedCounter.increment(count);
+    }
+}
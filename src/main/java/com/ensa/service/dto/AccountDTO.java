@@ -0,0 +1,95 @@
+package com.ensa.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A bank account, as exposed by the account service.
+ */
+public class AccountDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private Long clientId;
+
+    private String number;
+
+    private BigDecimal balance;
+
+    private String currency;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AccountDTO)) {
+            return false;
+        }
+        AccountDTO accountDTO = (AccountDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, accountDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AccountDTO{" +
+            "id=" + getId() +
+            ", clientId=" + getClientId() +
+            ", number='" + getNumber() + "'" +
+            ", balance=" + getBalance() +
+            ", currency='" + getCurrency() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,45 @@
+package com.ensa.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The balance of a walet, in minor units, once all its ledger entries up to {@code lastSequence} are applied.
+ */
+public class BalanceDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long waletId;
+
+    private final long balance;
+
+    private final long lastSequence;
+
+    public BalanceDTO(Long waletId, long balance, long lastSequence) {
+        this.waletId = waletId;
+        this.balance = balance;
+        this.lastSequence = lastSequence;
+    }
+
+    public Long getWaletId() {
+        return waletId;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BalanceDTO{" +
+            "waletId=" + getWaletId() +
+            ", balance=" + getBalance() +
+            ", lastSequence=" + getLastSequence() +
+            "}";
+    }
+}
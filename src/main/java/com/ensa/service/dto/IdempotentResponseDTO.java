@@ -0,0 +1,85 @@
+package com.ensa.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response recorded for an {@code Idempotency-Key}, replayed to every retry of the same request.
+ */
+public class IdempotentResponseDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String requestHash;
+
+    private final int status;
+
+    private final String contentType;
+
+    private final Map<String, List<String>> headers;
+
+    private final byte[] body;
+
+    private final Instant expiresAt;
+
+    public IdempotentResponseDTO(
+        String requestHash,
+        int status,
+        String contentType,
+        Map<String, List<String>> headers,
+        byte[] body,
+        Instant expiresAt
+    ) {
+        this.requestHash = requestHash;
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Returns a copy of this response that expires at the given instant.
+     */
+    public IdempotentResponseDTO expiringAt(Instant expiresAt) {
+        return new IdempotentResponseDTO(requestHash, status, contentType, headers, body, expiresAt);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IdempotentResponseDTO{" +
+            "status=" + getStatus() +
+            ", contentType='" + getContentType() + "'" +
+            ", headers=" + getHeaders() +
+            ", bodyLength=" + (body == null ? 0 : body.length) +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,80 @@
+package com.ensa.service.dto;
+
+import java.io.Serializable;
+import java.util.UUID;
+import javax.validation.constraints.*;
+
+/**
+ * A transfer of {@code amount} minor units from one walet to another.
+ */
+public class TransferDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private Long fromWaletId;
+
+    @NotNull
+    private Long toWaletId;
+
+    @NotNull
+    @Min(1)
+    private Long amount;
+
+    @Size(max = 255)
+    private String description;
+
+    private UUID journalId;
+
+    public Long getFromWaletId() {
+        return fromWaletId;
+    }
+
+    public void setFromWaletId(Long fromWaletId) {
+        this.fromWaletId = fromWaletId;
+    }
+
+    public Long getToWaletId() {
+        return toWaletId;
+    }
+
+    public void setToWaletId(Long toWaletId) {
+        this.toWaletId = toWaletId;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Long amount) {
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public UUID getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(UUID journalId) {
+        this.journalId = journalId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TransferDTO{" +
+            "fromWaletId=" + getFromWaletId() +
+            ", toWaletId=" + getToWaletId() +
+            ", amount=" + getAmount() +
+            ", description='" + getDescription() + "'" +
+            ", journalId='" + getJournalId() + "'" +
+            "}";
+    }
+}
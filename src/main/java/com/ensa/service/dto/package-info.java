@@ -0,0 +1,4 @@
+/**
+ * Data Transfer Objects.
+ */
+package com.ensa.service.dto;
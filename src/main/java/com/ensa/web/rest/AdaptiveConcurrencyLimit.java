@@ -0,0 +1,123 @@
+package com.ensa.web.rest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A limit on the number of requests in flight, adapted to the latency they are served with, after the gradient
+ * algorithm of Netflix's concurrency-limits.
+ * <p>
+ * The latencies are averaged over windows of {@value #WINDOW_SIZE} requests, and the average of each window compared to
+ * a long-term average of them, standing for the latency of the service when it is not queueing. While the window's
+ * average stays within {@value #TOLERANCE} times the long-term one, the limit grows by its square root, the queue the
+ * service is allowed; once it goes beyond, the limit is scaled down by their ratio, halving it at most. The changes are
+ * smoothed, and the limit is not grown on windows where less than half of it was used, as their latency says nothing
+ * about a larger limit.
+ * <p>
+ * Part of the limit is reserved for reads: writes are refused once the requests in flight take
+ * {@code 1 - readReserve} of it.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private static final int WINDOW_SIZE = 20;
+
+    /**
+     * Number of windows the long-term average is taken over.
+     */
+    private static final int LONG_WINDOW = 100;
+
+    private static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double readReserve;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private double longLatency;
+
+    private long windowLatencySum;
+
+    private int windowCount;
+
+    private int windowMaxInFlight;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double readReserve) {
+        if (minLimit < 1 || minLimit > maxLimit || readReserve < 0 || readReserve >= 1) {
+            throw new IllegalArgumentException("The concurrency limit needs 1 <= min-limit <= max-limit, and 0 <= read-reserve < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.readReserve = readReserve;
+        this.limit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+    }
+
+    /**
+     * Admits a request, if the limit allows it.
+     *
+     * @param read whether the request only reads.
+     * @return {@code true} if the request is admitted, and must then be {@link #release released} once completed.
+     */
+    boolean tryAcquire(boolean read) {
+        double currentLimit = limit;
+        int allowed = (int) (read ? currentLimit : Math.max(currentLimit * (1 - readReserve), 1));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request, adapting the limit to its latency.
+     *
+     * @param latency the time the request took, in nanoseconds.
+     */
+    void release(long latency) {
+        int current = inFlight.getAndDecrement();
+        onSample(latency, current);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long latency, int inFlightAtCompletion) {
+        windowLatencySum += latency;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+        if (++windowCount < WINDOW_SIZE) {
+            return;
+        }
+        double shortLatency = Math.max((double) windowLatencySum / windowCount, 1);
+        int maxInFlight = windowMaxInFlight;
+        windowLatencySum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        longLatency = longLatency == 0 ? shortLatency : longLatency + (shortLatency - longLatency) / LONG_WINDOW;
+        if (longLatency / shortLatency > 2) {
+            // After a long slow period, come back to the faster latency sooner than the long window would
+            longLatency *= 0.95;
+        }
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1, TOLERANCE * longLatency / shortLatency));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
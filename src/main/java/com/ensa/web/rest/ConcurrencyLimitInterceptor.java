@@ -0,0 +1,110 @@
+package com.ensa.web.rest;
+
+import com.ensa.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sheds the requests to the handlers of some controllers with a 503 once as many are in flight as their
+ * {@link AdaptiveConcurrencyLimit} allows, rather than letting them queue for database connections and time out.
+ * <p>
+ * {@code GET} and {@code HEAD} requests are reads, which may use the part of the limit reserved for them. The limit and
+ * the requests in flight are exposed as gauges, and the requests shed are counted by priority.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name());
+
+    private final Logger log = LoggerFactory.getLogger(ConcurrencyLimitInterceptor.class);
+
+    private final Set<Class<?>> controllers;
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final Counter shedReadsCounter;
+
+    private final Counter shedWritesCounter;
+
+    /**
+     * @param properties the configuration of the limit.
+     * @param meterRegistry the registry of the limit's meters.
+     * @param controllers the controllers whose handlers are limited, together.
+     */
+    public ConcurrencyLimitInterceptor(
+        ApplicationProperties.ConcurrencyLimit properties,
+        MeterRegistry meterRegistry,
+        Class<?>... controllers
+    ) {
+        this.controllers = Set.of(controllers);
+        this.concurrencyLimit =
+            new AdaptiveConcurrencyLimit(
+                properties.getInitialLimit(),
+                properties.getMinLimit(),
+                properties.getMaxLimit(),
+                properties.getReadReserve()
+            );
+        Gauge
+            .builder("http.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+            .description("Requests allowed in flight at once, adapted to their latency")
+            .register(meterRegistry);
+        Gauge
+            .builder("http.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+            .description("Requests in flight, out of the concurrency limit")
+            .register(meterRegistry);
+        this.shedReadsCounter = getCounter(meterRegistry, "read");
+        this.shedWritesCounter = getCounter(meterRegistry, "write");
+    }
+
+    private Counter getCounter(MeterRegistry meterRegistry, String priority) {
+        return Counter
+            .builder("http.concurrency.shed")
+            .description("Requests refused with a 503 because the concurrency limit was reached")
+            .tag("priority", priority)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod) || !controllers.contains(((HandlerMethod) handler).getBeanType())) {
+            return true;
+        }
+        boolean read = READ_METHODS.contains(request.getMethod());
+        if (!concurrencyLimit.tryAcquire(read)) {
+            (read ? shedReadsCounter : shedWritesCounter).increment();
+            log.debug(
+                "Shedding {} {}, the concurrency limit of {} is reached",
+                request.getMethod(),
+                request.getRequestURI(),
+                concurrencyLimit.getLimit()
+            );
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in flight");
+            return false;
+        }
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            request.removeAttribute(START_ATTRIBUTE);
+            concurrencyLimit.release(System.nanoTime() - (Long) start);
+        }
+    }
+}
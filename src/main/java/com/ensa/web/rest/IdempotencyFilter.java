@@ -0,0 +1,234 @@
+package com.ensa.web.rest;
+
+import com.ensa.security.SecurityUtils;
+import com.ensa.service.IdempotencyConflictException;
+import com.ensa.service.IdempotencyKeyReusedException;
+import com.ensa.service.IdempotencyService;
+import com.ensa.service.dto.IdempotentResponseDTO;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Makes the mutating {@code /api} endpoints idempotent for clients sending an {@value #IDEMPOTENCY_KEY_HEADER} header.
+ * <p>
+ * The first request with a key is executed and its response recorded through {@link IdempotencyService}; retries with
+ * the same key and the same request get the recorded response back, flagged with {@value #REPLAYED_HEADER}, without
+ * being executed again. Keys are scoped to the current user. A request that fails with a server error is not recorded,
+ * so that it can be retried.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of(HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name());
+
+    private static final Set<String> UNRECORDED_HEADERS = Set.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH);
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return (
+            request.getHeader(IDEMPOTENCY_KEY_HEADER) == null ||
+            !IDEMPOTENT_METHODS.contains(request.getMethod()) ||
+            !request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+        );
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + IDEMPOTENCY_KEY_HEADER + " header");
+            return;
+        }
+        BufferedBodyRequest bufferedRequest = new BufferedBodyRequest(request);
+        String key = sha256(SecurityUtils.getCurrentUserLogin().orElse("") + '\n' + idempotencyKey);
+        String requestHash = sha256(requestLine(request) + '\n', bufferedRequest.body);
+
+        Optional<IdempotentResponseDTO> recorded;
+        try {
+            recorded = idempotencyService.claimOrReplay(key, requestHash);
+        } catch (IdempotencyConflictException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.CONFLICT.value(), e.getMessage());
+            return;
+        } catch (IdempotencyKeyReusedException e) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), e.getMessage());
+            return;
+        }
+        if (recorded.isPresent()) {
+            log.debug("Replaying the recorded response of {} {}", request.getMethod(), request.getRequestURI());
+            replay(recorded.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(bufferedRequest, responseWrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyService.release(key);
+            throw e;
+        }
+        if (HttpStatus.valueOf(responseWrapper.getStatus()).is5xxServerError()) {
+            idempotencyService.release(key);
+        } else {
+            idempotencyService.complete(key, record(requestHash, responseWrapper));
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private IdempotentResponseDTO record(String requestHash, ContentCachingResponseWrapper response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (UNRECORDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return new IdempotentResponseDTO(
+            requestHash,
+            response.getStatus(),
+            response.getContentType(),
+            headers,
+            response.getContentAsByteArray(),
+            null
+        );
+    }
+
+    private void replay(IdempotentResponseDTO recorded, HttpServletResponse response) throws IOException {
+        response.setStatus(recorded.getStatus());
+        recorded
+            .getHeaders()
+            .forEach((name, values) -> {
+                response.setHeader(name, values.isEmpty() ? null : values.get(0));
+                values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+            });
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (recorded.getContentType() != null) {
+            response.setContentType(recorded.getContentType());
+        }
+        if (recorded.getBody() != null) {
+            response.setContentLength(recorded.getBody().length);
+            response.getOutputStream().write(recorded.getBody());
+        }
+    }
+
+    /**
+     * @return the method and URI of the request, with its query string if it has one.
+     */
+    static String requestLine(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getMethod() + ' ' + request.getRequestURI() + (query != null ? '?' + query : "");
+    }
+
+    private static String sha256(String text, byte[]... more) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            for (byte[] bytes : more) {
+                digest.update(bytes);
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the body once, so that it can be both fingerprinted and handed to the endpoint.
+     */
+    static class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body being already read, the listener is called back at once, from the calling thread.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
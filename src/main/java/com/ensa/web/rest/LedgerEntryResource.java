@@ -0,0 +1,99 @@
+package com.ensa.web.rest;
+
+import com.ensa.domain.LedgerEntry;
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.service.LedgerService;
+import com.ensa.service.dto.BalanceDTO;
+import com.ensa.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import java.util.Optional;
+import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the ledger of the {@link com.ensa.domain.Walet}s.
+ * <p>
+ * Ledger entries are append-only: they can be posted and read, never updated nor deleted.
+ */
+@RestController
+@RequestMapping("/api")
+public class LedgerEntryResource {
+
+    private final Logger log = LoggerFactory.getLogger(LedgerEntryResource.class);
+
+    private static final String ENTITY_NAME = "waletApiLedgerEntry";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final LedgerService ledgerService;
+
+    public LedgerEntryResource(LedgerService ledgerService) {
+        this.ledgerService = ledgerService;
+    }
+
+    /**
+     * {@code POST  /ledger-entries} : Post a balanced journal, as an admin.
+     * <p>
+     * The journal may debit any walet, even below zero, as funding walets does; the transfers of the users go through
+     * {@code POST /api/transfers} instead, which refuses overdrafts.
+     *
+     * @param legs the legs of the journal; their amounts, in minor units, must sum to zero.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new entries, or with status {@code 400 (Bad Request)} if the journal is not valid.
+     */
+    @PostMapping("/ledger-entries")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<List<LedgerEntry>> postJournal(@Valid @RequestBody List<LedgerEntry> legs) {
+        log.debug("REST request to post journal : {}", legs);
+        if (legs.stream().anyMatch(leg -> leg.getId() != null)) {
+            throw new BadRequestAlertException("A new ledger entry cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        List<LedgerEntry> result = ledgerService.post(legs);
+        String journalId = result.get(0).getJournalId().toString();
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + "." + ENTITY_NAME + ".created", journalId))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /walets/:waletId/ledger-entries} : get the ledger entries of a walet, latest first.
+     *
+     * @param waletId the id of the walet.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of entries in body.
+     */
+    @GetMapping("/walets/{waletId}/ledger-entries")
+    public ResponseEntity<List<LedgerEntry>> getLedgerEntries(@PathVariable Long waletId, Pageable pageable) {
+        log.debug("REST request to get a page of LedgerEntries of Walet : {}", waletId);
+        Page<LedgerEntry> page = ledgerService.findAllByWalet(waletId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /walets/:waletId/balance} : get the balance of a walet.
+     *
+     * @param waletId the id of the walet.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the balance, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/walets/{waletId}/balance")
+    public ResponseEntity<BalanceDTO> getBalance(@PathVariable Long waletId) {
+        log.debug("REST request to get the balance of Walet : {}", waletId);
+        Optional<BalanceDTO> balance = ledgerService.getBalance(waletId);
+        return ResponseUtil.wrapOrNotFound(balance);
+    }
+}
@@ -0,0 +1,133 @@
+package com.ensa.web.rest;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.security.SecurityUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Limits the rate of the requests of each client, with the {@link TokenBuckets} of the route they match, as configured
+ * by {@link ApplicationProperties.RateLimit}.
+ * <p>
+ * Clients are told apart by the login of their token, and by their address when they are not authenticated, so the
+ * filter must come after the {@link com.ensa.security.jwt.JWTFilter}. A request without a token left gets a 429, with
+ * a {@value HttpHeaders#RETRY_AFTER} header telling when the next one will be. The requests let through and refused are
+ * counted by route.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public RateLimitFilter(ApplicationProperties.RateLimit properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(ApplicationProperties.RateLimit properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        for (Map.Entry<String, ApplicationProperties.RateLimit.Route> entry : properties.getRoutes().entrySet()) {
+            ApplicationProperties.RateLimit.Route route = entry.getValue();
+            TokenBuckets buckets = new TokenBuckets(
+                route.getCapacity(),
+                route.getRefillTokens(),
+                route.getRefillPeriod(),
+                properties.getIdleTimeout(),
+                nanoTime
+            );
+            routes.add(new Route(entry.getKey(), route.getMethods(), buckets, meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Route route = routes.stream().filter(candidate -> candidate.matches(request.getMethod(), path)).findFirst().orElse(null);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String client = SecurityUtils.isAuthenticated()
+            ? "user:" + SecurityUtils.getCurrentUserLogin().orElse("")
+            : "address:" + request.getRemoteAddr();
+        long wait = route.buckets.tryAcquire(client);
+        if (wait > 0) {
+            route.throttledCounter.increment();
+            log.debug("Rate limit of {} exceeded by {}", route.pattern, client);
+            // Rounded up, so that a client retrying after that long gets a token
+            long retryAfter = TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        route.allowedCounter.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    private class Route {
+
+        private final String pattern;
+
+        private final Set<HttpMethod> methods;
+
+        private final TokenBuckets buckets;
+
+        private final Counter allowedCounter;
+
+        private final Counter throttledCounter;
+
+        Route(String pattern, Set<HttpMethod> methods, TokenBuckets buckets, MeterRegistry meterRegistry) {
+            this.pattern = pattern;
+            this.methods = methods.isEmpty() ? EnumSet.noneOf(HttpMethod.class) : EnumSet.copyOf(methods);
+            this.buckets = buckets;
+            this.allowedCounter = getCounter(meterRegistry, "allowed");
+            this.throttledCounter = getCounter(meterRegistry, "throttled");
+            Gauge
+                .builder("http.rate-limit.clients", buckets, TokenBuckets::size)
+                .description("Clients with a token bucket, those idle for long enough being forgotten")
+                .tag("route", pattern)
+                .register(meterRegistry);
+        }
+
+        private Counter getCounter(MeterRegistry meterRegistry, String result) {
+            return Counter
+                .builder("http.rate-limit.requests")
+                .description("Requests subject to a rate limit, by whether they were let through or refused with a 429")
+                .tag("route", pattern)
+                .tag("result", result)
+                .register(meterRegistry);
+        }
+
+        boolean matches(String method, String path) {
+            return (methods.isEmpty() || methods.contains(HttpMethod.resolve(method))) && pathMatcher.match(pattern, path);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ensa.web.rest;
+
+import com.ensa.config.StatementMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements each HTTP request executes, so that N+1 selects show up: the counts are recorded in a
+ * distribution summary by method and handler pattern, and the requests executing more than
+ * {@code maxStatementsPerRequest} are logged.
+ * <p>
+ * Only the statements executed by the thread serving the request are counted.
+ */
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final Logger log = LoggerFactory.getLogger(StatementCountFilter.class);
+
+    private final StatementMetrics statementMetrics;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxStatementsPerRequest;
+
+    public StatementCountFilter(StatementMetrics statementMetrics, MeterRegistry meterRegistry, int maxStatementsPerRequest) {
+        this.statementMetrics = statementMetrics;
+        this.meterRegistry = meterRegistry;
+        this.maxStatementsPerRequest = maxStatementsPerRequest;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        statementMetrics.startCounting();
+        int statements;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementMetrics.stopCounting();
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        DistributionSummary
+            .builder("http.server.requests.statements")
+            .description("SQL statements executed by the HTTP requests")
+            .baseUnit("statements")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(statements);
+        if (statements > maxStatementsPerRequest) {
+            log.warn("{} {} executed {} SQL statements, more than {}", request.getMethod(), uri, statements, maxStatementsPerRequest);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ensa.web.rest;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The token buckets of a rate limit, one per client, each holding up to {@code capacity} tokens and refilled with
+ * {@code refillTokens} every {@code refillPeriod}.
+ * <p>
+ * A bucket is held as a single {@link AtomicLong}, the time at which it will be full again (the virtual scheduling form
+ * of the token bucket, known as GCRA): taking a token pushes that time one refill interval further, and is refused when
+ * it would push it further than {@code capacity} intervals ahead of now. Requests of the same client update their bucket
+ * with a compare-and-set, without locking, and requests of different clients never contend.
+ * <p>
+ * A bucket that has been full for {@code idleTimeout} is no different from a new one, so it is evicted; the buckets are
+ * swept for those at most once per {@code idleTimeout}, by the request that finds the sweep due. A request racing with
+ * the eviction of its bucket may take its token from the evicted bucket, letting its client one request more through.
+ */
+class TokenBuckets {
+
+    private final long refillInterval;
+
+    private final long burstTolerance;
+
+    private final long idleTimeout;
+
+    private final LongSupplier nanoTime;
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep;
+
+    TokenBuckets(int capacity, int refillTokens, Duration refillPeriod, Duration idleTimeout) {
+        this(capacity, refillTokens, refillPeriod, idleTimeout, System::nanoTime);
+    }
+
+    TokenBuckets(int capacity, int refillTokens, Duration refillPeriod, Duration idleTimeout, LongSupplier nanoTime) {
+        if (capacity < 1 || refillTokens < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("A rate limit needs a capacity, and tokens refilled over a positive period");
+        }
+        this.refillInterval = Math.max(refillPeriod.toNanos() / refillTokens, 1);
+        this.burstTolerance = refillInterval * (capacity - 1);
+        this.idleTimeout = idleTimeout.toNanos();
+        this.nanoTime = nanoTime;
+        this.nextSweep = new AtomicLong(nanoTime.getAsLong() + this.idleTimeout);
+    }
+
+    /**
+     * Takes a token from the bucket of a client.
+     *
+     * @param client the key of the client.
+     * @return {@code 0} if a token was taken, otherwise the time until one is available, in nanoseconds.
+     */
+    long tryAcquire(String client) {
+        long now = nanoTime.getAsLong();
+        sweepIfDue(now);
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            // Compared by difference, as nanoTime may overflow
+            long start = fullAt - now < 0 ? now : fullAt;
+            long wait = start - burstTolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + refillInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the number of clients with a bucket.
+     */
+    int size() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + idleTimeout)) {
+            buckets.forEach((client, bucket) -> {
+                if (now - bucket.get() >= idleTimeout) {
+                    buckets.remove(client, bucket);
+                }
+            });
+        }
+    }
+}
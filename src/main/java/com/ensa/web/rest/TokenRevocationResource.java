@@ -0,0 +1,64 @@
+package com.ensa.web.rest;
+
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.security.SecurityUtils;
+import com.ensa.service.TokenRevocationService;
+import com.ensa.web.rest.errors.BadRequestAlertException;
+import com.ensa.web.rest.vm.TokenRevocationVM;
+import io.jsonwebtoken.JwtException;
+import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller revoking JWTs before their expiration.
+ */
+@RestController
+@RequestMapping("/api")
+public class TokenRevocationResource {
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationResource.class);
+
+    private static final String ENTITY_NAME = "waletApiTokenRevocation";
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public TokenRevocationResource(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    /**
+     * {@code POST  /logout} : Revoke the token of the current request.
+     *
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}, or with status {@code 401 (Unauthorized)}
+     * if the request carries no valid token.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        log.debug("REST request to revoke the token of the current user");
+        SecurityUtils.getCurrentUserJWT().ifPresent(tokenRevocationService::revoke);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * {@code POST  /admin/token-revocations} : Revoke a token, such as a stolen one.
+     *
+     * @param tokenRevocation the token to revoke.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}, or with status {@code 400 (Bad Request)}
+     * if the token is not valid, or has already expired.
+     */
+    @PostMapping("/admin/token-revocations")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> revokeToken(@Valid @RequestBody TokenRevocationVM tokenRevocation) {
+        log.debug("REST request to revoke a token");
+        try {
+            tokenRevocationService.revoke(tokenRevocation.getToken());
+        } catch (JwtException e) {
+            throw new BadRequestAlertException("The token is not valid: " + e.getMessage(), ENTITY_NAME, "invalidtoken");
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
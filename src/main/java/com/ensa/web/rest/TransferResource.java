@@ -0,0 +1,51 @@
+package com.ensa.web.rest;
+
+import com.ensa.service.TransferService;
+import com.ensa.service.dto.TransferDTO;
+import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for transfers between {@link com.ensa.domain.Walet}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class TransferResource {
+
+    private final Logger log = LoggerFactory.getLogger(TransferResource.class);
+
+    private static final String ENTITY_NAME = "waletApiTransfer";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final TransferService transferService;
+
+    public TransferResource(TransferService transferService) {
+        this.transferService = transferService;
+    }
+
+    /**
+     * {@code POST  /transfers} : Transfer funds from one walet to another.
+     *
+     * @param transfer the transfer to execute.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the transfer and its journal id,
+     * or with status {@code 400 (Bad Request)} if the transfer is not valid or the debited walet lacks funds,
+     * or with status {@code 409 (Conflict)} if the walets could not be locked in time.
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<TransferDTO> createTransfer(@Valid @RequestBody TransferDTO transfer) {
+        log.debug("REST request to transfer : {}", transfer);
+        TransferDTO result = transferService.transfer(transfer);
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createAlert(applicationName, applicationName + "." + ENTITY_NAME + ".created", result.getJournalId().toString()))
+            .body(result);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ensa.web.rest;
+
+import com.ensa.client.AccountLoader;
+import com.ensa.domain.Walet;
+import com.ensa.repository.WaletRepository;
+import com.ensa.service.dto.AccountDTO;
+import com.ensa.web.rest.errors.BadRequestAlertException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the bank accounts of the clients owning {@link com.ensa.domain.Walet}s.
+ * <p>
+ * Not transactional on purpose: no database connection is held while the account service is called. The lookups go
+ * through {@link AccountLoader}, so that a page of walets costs a single call to the account service.
+ */
+@RestController
+@RequestMapping("/api")
+public class WaletAccountResource {
+
+    private static final String ENTITY_NAME = "waletApiWalet";
+
+    private final Logger log = LoggerFactory.getLogger(WaletAccountResource.class);
+
+    private final WaletRepository waletRepository;
+
+    private final AccountLoader accountLoader;
+
+    public WaletAccountResource(WaletRepository waletRepository, AccountLoader accountLoader) {
+        this.waletRepository = waletRepository;
+        this.accountLoader = accountLoader;
+    }
+
+    /**
+     * {@code GET  /walets/accounts} : get the accounts of the clients owning a keyset page of the walets.
+     * <p>
+     * The page is the one {@code GET /walets} returns for the same parameters.
+     *
+     * @param cursor the id of the last walet of the previous page, if any.
+     * @param size the maximum number of walets of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the accounts by walet id, in id order.
+     */
+    @GetMapping("/walets/accounts")
+    public ResponseEntity<Map<Long, List<AccountDTO>>> getAllWaletAccounts(
+        @RequestParam(value = "cursor", required = false) Long cursor,
+        @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get the accounts of a page of Walets after : {}", cursor);
+        if (size < 1 || size > WaletResource.MAX_PAGE_SIZE) {
+            throw new BadRequestAlertException(
+                "Page size must be between 1 and " + WaletResource.MAX_PAGE_SIZE,
+                ENTITY_NAME,
+                "pagesizeinvalid"
+            );
+        }
+        List<Walet> page = waletRepository.findByIdGreaterThanOrderByIdAsc(
+            cursor != null ? cursor : Long.MIN_VALUE,
+            PageRequest.of(0, size)
+        );
+        Map<Long, List<AccountDTO>> accountsByClient = accountLoader.getAccountsByClients(
+            page.stream().map(Walet::getIdCLient).filter(Objects::nonNull).distinct().collect(Collectors.toList())
+        );
+        Map<Long, List<AccountDTO>> accounts = new LinkedHashMap<>();
+        page.forEach(walet -> accounts.put(walet.getId(), accountsByClient.get(walet.getIdCLient())));
+        return ResponseEntity.ok(accounts);
+    }
+
+    /**
+     * {@code GET  /walets/:id/accounts} : get the accounts of the client owning the "id" walet.
+     *
+     * @param id the id of the walet.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the accounts, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/walets/{id}/accounts")
+    public ResponseEntity<List<AccountDTO>> getWaletAccounts(@PathVariable Long id) {
+        log.debug("REST request to get the accounts of Walet : {}", id);
+        Optional<List<AccountDTO>> accounts = waletRepository
+            .findById(id)
+            .map(Walet::getIdCLient)
+            .map(clientId -> accountLoader.getAccountsByClients(List.of(clientId)).get(clientId));
+        return ResponseUtil.wrapOrNotFound(accounts);
+    }
+}
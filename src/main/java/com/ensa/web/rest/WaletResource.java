@@ -1,21 +1,46 @@
 package com.ensa.web.rest;
 
+import com.ensa.config.PrimaryReads;
+import com.ensa.config.cache.CacheInvalidationPublisher;
 import com.ensa.domain.Walet;
 import com.ensa.repository.WaletRepository;
+import com.ensa.service.HotWaletTracker;
 import com.ensa.web.rest.errors.BadRequestAlertException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -31,13 +56,60 @@ public class WaletResource {
 
     private static final String ENTITY_NAME = "waletApiWalet";
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int MAX_PAGE_SIZE = 2000;
+
+    /**
+     * The ids looked up by {@link #getWalet(Long)} that had no walet, even on the primary database, so that looking them
+     * up again costs no query.
+     * Bounded and short-lived, see {@code application.cache.regions}; the ids of the walets created are evicted from it
+     * once their transaction is committed, and from that of the other instances by their
+     * {@link com.ensa.config.cache.CacheInvalidationReceiver}.
+     */
+    public static final String MISSING_WALETS_CACHE = "missing-walets";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+    private int jdbcBatchSize;
+
     private final WaletRepository waletRepository;
 
-    public WaletResource(WaletRepository waletRepository) {
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Long, Boolean> missingWalets;
+
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+
+    private final HotWaletTracker hotWaletTracker;
+
+    /**
+     * Looks up on the primary the walets the read replica does not have yet, before they are cached as missing.
+     */
+    private final TransactionTemplate primaryReadTransaction;
+
+    public WaletResource(
+        WaletRepository waletRepository,
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        CacheManager cacheManager,
+        CacheInvalidationPublisher cacheInvalidationPublisher,
+        HotWaletTracker hotWaletTracker,
+        PlatformTransactionManager transactionManager
+    ) {
         this.waletRepository = waletRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.missingWalets = cacheManager.getCache(MISSING_WALETS_CACHE);
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+        this.hotWaletTracker = hotWaletTracker;
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+        this.primaryReadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryReadTransaction.setReadOnly(true);
     }
 
     /**
@@ -54,12 +126,46 @@ public class WaletResource {
             throw new BadRequestAlertException("A new walet cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Walet result = waletRepository.save(walet);
+        forgetMissing(Set.of(result.getId()));
         return ResponseEntity
             .created(new URI("/api/walets/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * {@code POST  /walets/batch} : Create new walets in a single transaction.
+     * <p>
+     * Ids come from the pooled sequence generator and the inserts are sent as JDBC batches of
+     * {@code hibernate.jdbc.batch_size}; the persistence context is flushed and cleared after each batch.
+     *
+     * @param walets the walets to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new walets, or with status {@code 400 (Bad Request)} if a walet has already an ID.
+     */
+    @PostMapping("/walets/batch")
+    public ResponseEntity<List<Walet>> createWalets(@Valid @RequestBody List<Walet> walets) {
+        log.debug("REST request to save {} Walets", walets.size());
+        if (walets.stream().anyMatch(walet -> walet.getId() != null)) {
+            throw new BadRequestAlertException("A new walet cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        List<Walet> result = new ArrayList<>(walets.size());
+        for (Walet walet : walets) {
+            result.add(waletRepository.save(walet));
+            if (result.size() % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        forgetMissing(result.stream().map(Walet::getId).collect(Collectors.toSet()));
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .headers(
+                HeaderUtil.createAlert(applicationName, applicationName + "." + ENTITY_NAME + ".created", String.valueOf(result.size()))
+            )
+            .body(result);
+    }
+
     /**
      * {@code PUT  /walets/:id} : Updates an existing walet.
      *
@@ -85,6 +191,7 @@ public class WaletResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        hotWaletTracker.record(id);
         Walet result = waletRepository.save(walet);
         return ResponseEntity
             .ok()
@@ -94,6 +201,8 @@ public class WaletResource {
 
     /**
      * {@code PATCH  /walets/:id} : Partial updates given fields of an existing walet, field will ignore if it is null
+     * <p>
+     * The fields are applied with a single {@code UPDATE} statement; the walet is only read back to build the response.
      *
      * @param id the id of the walet to save.
      * @param walet the walet to update.
@@ -116,26 +225,13 @@ public class WaletResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!waletRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        int updated = waletRepository.partialUpdate(id, walet.getIdCLient(), walet.getLogin(), walet.getPassword());
+        if (updated > 0) {
+            hotWaletTracker.record(id);
+            // Hibernate event listeners do not see bulk updates
+            cacheInvalidationPublisher.invalidate(Walet.class.getName(), id, walet.getLogin() != null);
         }
-
-        Optional<Walet> result = waletRepository
-            .findById(walet.getId())
-            .map(existingWalet -> {
-                if (walet.getIdCLient() != null) {
-                    existingWalet.setIdCLient(walet.getIdCLient());
-                }
-                if (walet.getLogin() != null) {
-                    existingWalet.setLogin(walet.getLogin());
-                }
-                if (walet.getPassword() != null) {
-                    existingWalet.setPassword(walet.getPassword());
-                }
-
-                return existingWalet;
-            })
-            .map(waletRepository::save);
+        Optional<Walet> result = updated == 0 ? Optional.empty() : waletRepository.findById(id);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -144,14 +240,100 @@ public class WaletResource {
     }
 
     /**
-     * {@code GET  /walets} : get all the walets.
+     * {@code GET  /walets} : get a keyset page of the walets.
+     * <p>
+     * Walets are returned in id order. When more walets may follow, the id to resume from is sent in the
+     * {@code X-Next-Cursor} header and as a {@code rel="next"} {@code Link}.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of walets in body.
+     * @param cursor the id of the last walet of the previous page, if any.
+     * @param size the maximum number of walets to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of walets in body.
      */
     @GetMapping("/walets")
-    public List<Walet> getAllWalets() {
-        log.debug("REST request to get all Walets");
-        return waletRepository.findAll();
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<Walet>> getAllWalets(
+        @RequestParam(value = "cursor", required = false) Long cursor,
+        @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a page of Walets after : {}", cursor);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestAlertException("Page size must be between 1 and " + MAX_PAGE_SIZE, ENTITY_NAME, "pagesizeinvalid");
+        }
+        List<Walet> page = waletRepository.findByIdGreaterThanOrderByIdAsc(
+            cursor != null ? cursor : Long.MIN_VALUE,
+            PageRequest.of(0, size)
+        );
+        HttpHeaders headers = new HttpHeaders();
+        if (page.size() == size) {
+            String nextCursor = page.get(page.size() - 1).getId().toString();
+            String nextLink = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("cursor", nextCursor)
+                .replaceQueryParam("size", size)
+                .toUriString();
+            headers.add(NEXT_CURSOR_HEADER, nextCursor);
+            headers.add(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    /**
+     * {@code GET  /walets/stream} : stream all the walets.
+     * <p>
+     * The walets are read through a database cursor and written to the response one by one, so memory use
+     * does not depend on the size of the table.
+     *
+     * @param response the response the JSON array of walets is written to.
+     * @throws IOException if the response could not be written.
+     */
+    @GetMapping("/walets/stream")
+    @Transactional(readOnly = true)
+    public void streamAllWalets(HttpServletResponse response) throws IOException {
+        log.debug("REST request to stream all Walets");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (
+            Stream<Walet> walets = waletRepository.streamAllByOrderByIdAsc();
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())
+        ) {
+            generator.writeStartArray();
+            walets.forEach(walet -> {
+                try {
+                    generator.writeObject(walet);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(walet);
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * {@code GET  /walets?idClient=} : get the walets of a client.
+     *
+     * @param idClient the id of the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of walets in body.
+     */
+    @GetMapping(value = "/walets", params = "idClient")
+    @Transactional(readOnly = true)
+    public List<Walet> getWaletsByClient(@RequestParam("idClient") Long idClient) {
+        log.debug("REST request to get Walets of client : {}", idClient);
+        return waletRepository.findAllByIdCLient(idClient);
+    }
+
+    /**
+     * {@code GET  /walets/by-login/:login} : get the walet with the given login.
+     *
+     * @param login the login of the walet to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the walet, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/walets/by-login/{login}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Walet> getWaletByLogin(@PathVariable String login) {
+        log.debug("REST request to get Walet by login : {}", login);
+        Optional<Walet> walet = waletRepository.findOneByLogin(login);
+        walet.map(Walet::getId).ifPresent(hotWaletTracker::record);
+        return ResponseUtil.wrapOrNotFound(walet);
     }
 
     /**
@@ -161,12 +343,43 @@ public class WaletResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the walet, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/walets/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Walet> getWalet(@PathVariable Long id) {
         log.debug("REST request to get Walet : {}", id);
+        if (missingWalets.get(id) != null) {
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+        }
         Optional<Walet> walet = waletRepository.findById(id);
+        if (walet.isEmpty()) {
+            // The read replica may lag behind the creation of the walet, whose id would then be cached as missing
+            walet = PrimaryReads.run(() -> primaryReadTransaction.execute(status -> waletRepository.findById(id)));
+            if (walet.isEmpty()) {
+                missingWalets.put(id, Boolean.TRUE);
+            }
+        }
+        walet.map(Walet::getId).ifPresent(hotWaletTracker::record);
         return ResponseUtil.wrapOrNotFound(walet);
     }
 
+    /**
+     * Evicts the ids of new walets from the {@link #MISSING_WALETS_CACHE} once they are committed: evicting them sooner
+     * would let a lookup made in the meantime cache them as missing again.
+     */
+    private void forgetMissing(Set<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            missingWalets.removeAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    missingWalets.removeAll(ids);
+                }
+            }
+        );
+    }
+
     /**
      * {@code DELETE  /walets/:id} : delete the "id" walet.
      *
@@ -1,5 +1,7 @@
 package com.ensa.web.rest.errors;
 
+import com.ensa.client.AccountServiceUnavailableException;
+import com.ensa.service.LedgerException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -130,6 +132,29 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(ex, problem, request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleLedgerException(LedgerException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.BAD_REQUEST)
+            .withTitle("Journal rejected")
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_LEDGER)
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleAccountServiceUnavailable(AccountServiceUnavailableException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withTitle("Account service unavailable")
+            .with(MESSAGE_KEY, ErrorConstants.ERR_ACCOUNT_SERVICE_UNAVAILABLE)
+            .build();
+        return create(ex, problem, request);
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
@@ -1,6 +1,49 @@
 package com.ensa.web.rest.proxy;
 
+import com.ensa.service.dto.AccountDTO;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "")
-public interface AccountProxy {}
+/**
+ * Client of the account service, discovered through the registry unless {@code application.account-api.url} is set.
+ * <p>
+ * The HTTP client it runs on is configured in {@link com.ensa.config.FeignConfiguration}. The bean injected as an
+ * {@code AccountProxy} is {@link com.ensa.client.CachingAccountProxy}, which caches the responses of this Feign client;
+ * the client itself is the {@value #FEIGN_CLIENT} bean.
+ * <p>
+ * Each method runs behind its own thread-pool bulkhead, time limiter and circuit breaker, named after the method, like
+ * {@code accountapi_getAccount}; see the {@code resilience4j} properties. A call that fails, times out or is rejected
+ * throws a {@code NoFallbackAvailableException} caused by the failure: the fallback, serving the last known response, is
+ * {@link com.ensa.client.CachingAccountProxy}'s.
+ */
+@FeignClient(
+    name = "accountapi",
+    url = "${application.account-api.url:}",
+    qualifiers = AccountProxy.FEIGN_CLIENT,
+    primary = false
+)
+public interface AccountProxy {
+    String FEIGN_CLIENT = "accountapiFeignClient";
+
+    @GetMapping("/api/accounts/{id}")
+    AccountDTO getAccount(@PathVariable("id") Long id);
+
+    @GetMapping("/api/accounts")
+    List<AccountDTO> getAccountsByClient(@RequestParam("clientId") Long clientId);
+
+    /**
+     * Bulk variant of {@link #getAccount}: ids without an account are left out of the result.
+     */
+    @GetMapping("/api/accounts")
+    List<AccountDTO> getAccounts(@RequestParam("id") Collection<Long> ids);
+
+    /**
+     * Bulk variant of {@link #getAccountsByClient}, returning the accounts of all the clients.
+     */
+    @GetMapping("/api/accounts")
+    List<AccountDTO> getAccountsByClients(@RequestParam("clientId") Collection<Long> clientIds);
+}
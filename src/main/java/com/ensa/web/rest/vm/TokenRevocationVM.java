@@ -0,0 +1,26 @@
+package com.ensa.web.rest.vm;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * View Model of the token to revoke.
+ */
+public class TokenRevocationVM {
+
+    @NotBlank
+    private String token;
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TokenRevocationVM{token=*****}";
+    }
+}
@@ -0,0 +1,171 @@
+package com.ensa.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.ensa.config.ApplicationProperties;
+import com.ensa.repository.RevokedTokenRepository;
+import com.ensa.security.jwt.TokenProvider;
+import com.ensa.service.HotWaletTracker;
+import com.ensa.service.LoggingAspectTestService;
+import com.ensa.service.TokenRevocationService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Tests {@link LoggingAspect} around a {@link LoggingAspectTestService}, and around a {@link TokenRevocationService},
+ * whose arguments must not be logged.
+ */
+class LoggingAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ApplicationProperties.MethodTiming properties;
+
+    private Logger serviceLogger;
+
+    private Level serviceLevel;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ApplicationProperties.MethodTiming();
+        serviceLogger = (Logger) LoggerFactory.getLogger(LoggingAspectTestService.class.getPackageName());
+        serviceLevel = serviceLogger.getLevel();
+        serviceLogger.setLevel(Level.DEBUG);
+        appender = new ListAppender<>();
+        appender.start();
+        serviceLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void teardown() {
+        serviceLogger.detachAppender(appender);
+        serviceLogger.setLevel(serviceLevel);
+    }
+
+    private <T> T advised(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new LoggingAspect(new MockEnvironment(), properties, meterRegistry));
+        return factory.getProxy();
+    }
+
+    private Timer timer(String method, String exception) {
+        return meterRegistry
+            .get(LoggingAspect.TIMER_NAME)
+            .tag("class", LoggingAspectTestService.class.getName())
+            .tag("method", method)
+            .tag("exception", exception)
+            .timer();
+    }
+
+    @Test
+    void testCallsAreTimedPerMethod() {
+        LoggingAspectTestService service = advised(new LoggingAspectTestService());
+
+        service.square(1L);
+        service.square(2L);
+        service.count();
+
+        assertThat(timer("square", "none").count()).isEqualTo(2);
+        assertThat(timer("count", "none").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedCallsAreTimedByException() {
+        LoggingAspectTestService service = advised(new LoggingAspectTestService());
+
+        assertThatThrownBy(service::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("fail", "IllegalStateException").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCallsAreNotLoggedUnlessSampled() {
+        properties.setSampleRate(0);
+        LoggingAspectTestService service = advised(new LoggingAspectTestService());
+
+        service.square(1L);
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void testSampledCallsAreLoggedWithTheirArgumentsAndResult() {
+        properties.setSampleRate(1);
+        LoggingAspectTestService service = advised(new LoggingAspectTestService());
+
+        service.square(42L);
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.DEBUG);
+        assertThat(appender.list.get(0).getFormattedMessage()).startsWith("square() took").contains("[42]").endsWith("result = 1764");
+    }
+
+    @Test
+    void testSlowCallsAreLoggedWithoutTheirArguments() {
+        properties.setSampleRate(0);
+        properties.setSlowCallThreshold(Duration.ZERO);
+        serviceLogger.setLevel(Level.INFO);
+        LoggingAspectTestService service = advised(new LoggingAspectTestService());
+
+        service.square(42L);
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.WARN);
+        assertThat(appender.list.get(0).getFormattedMessage()).matches("Slow call, square\\(\\) took \\d+ ms");
+    }
+
+    @Test
+    void testTokensAreNeverLogged() {
+        properties.setSampleRate(1);
+        properties.setSlowCallThreshold(Duration.ZERO);
+        TokenProvider tokenProvider = mock(TokenProvider.class);
+        when(tokenProvider.revoke("bearer-token")).thenThrow(new IllegalArgumentException("not a token"));
+        TokenRevocationService tokenRevocationService = advised(
+            new TokenRevocationService(mock(RevokedTokenRepository.class), tokenProvider, null, new ApplicationProperties())
+        );
+
+        assertThatThrownBy(() -> tokenRevocationService.revoke("bearer-token")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(appender.list)
+            .extracting(ILoggingEvent::getFormattedMessage)
+            .anyMatch(message -> message.startsWith("Illegal argument: <hidden> in revoke()"))
+            .noneMatch(message -> message.contains("bearer-token"));
+    }
+
+    @Test
+    void testHotWaletTrackerIsNotTimed() {
+        properties.setSampleRate(1);
+        HotWaletTracker tracker = advised(new HotWaletTracker(new ApplicationProperties(), null));
+
+        tracker.record(42L);
+        tracker.isHot(42L);
+
+        assertThat(meterRegistry.find(LoggingAspect.TIMER_NAME).timers()).isEmpty();
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void testLongValuesAreCut() {
+        assertThat(LoggingAspect.render(new Object[] { "a".repeat(2 * LoggingAspect.MAX_LOGGED_LENGTH) }))
+            .hasSize(LoggingAspect.MAX_LOGGED_LENGTH + 3)
+            .endsWith("...");
+        assertThat(LoggingAspect.render(null)).isEqualTo("null");
+    }
+}
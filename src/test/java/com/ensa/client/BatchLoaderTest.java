@@ -0,0 +1,214 @@
+package com.ensa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class BatchLoaderTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    private MeterRegistry meterRegistry;
+
+    private List<List<Integer>> calls;
+
+    @BeforeEach
+    public void setup() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+        calls = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void loginAs(String login) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(login, "token-" + login));
+    }
+
+    private BatchLoader<Integer, String> loader(int maxBatchSize, Duration window, Function<List<Integer>, Map<Integer, String>> fetch) {
+        return new BatchLoader<>(
+            "test",
+            keys -> {
+                calls.add(keys);
+                return fetch.apply(keys);
+            },
+            maxBatchSize,
+            window,
+            scheduler,
+            Runnable::run,
+            meterRegistry
+        );
+    }
+
+    private static Map<Integer, String> evenOnly(List<Integer> keys) {
+        return keys.stream().filter(key -> key % 2 == 0).collect(Collectors.toMap(Function.identity(), key -> "value-" + key));
+    }
+
+    @Test
+    void testLoadsWithinTheWindowShareOneCall() {
+        BatchLoader<Integer, String> loader = loader(100, Duration.ofMillis(50), BatchLoaderTest::evenOnly);
+
+        CompletableFuture<String> two = loader.load(2);
+        CompletableFuture<String> three = loader.load(3);
+        CompletableFuture<String> four = loader.load(4);
+
+        assertThat(two.join()).isEqualTo("value-2");
+        assertThat(three.join()).isNull();
+        assertThat(four.join()).isEqualTo("value-4");
+        assertThat(calls).containsExactly(List.of(2, 3, 4));
+    }
+
+    @Test
+    void testConcurrentLoadsOfAKeyAreCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BatchLoader<Integer, String> loader = loader(
+            100,
+            Duration.ofMillis(1),
+            keys -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return evenOnly(keys);
+            }
+        );
+
+        CompletableFuture<String> first = loader.load(2);
+        // Wait for the batch to be sent, the key is now being fetched
+        while (calls.isEmpty()) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<String> second = loader.load(2);
+        release.countDown();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.join()).isEqualTo("value-2");
+        assertThat(calls).hasSize(1);
+        assertThat(meterRegistry.get("client.batch.coalesced").counter().count()).isEqualTo(1);
+
+        // Nothing is cached once answered
+        assertThat(loader.load(2).join()).isEqualTo("value-2");
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaiting() {
+        BatchLoader<Integer, String> loader = loader(2, Duration.ofHours(1), BatchLoaderTest::evenOnly);
+
+        CompletableFuture<String> two = loader.load(2);
+        CompletableFuture<String> four = loader.load(4);
+
+        assertThat(two.join()).isEqualTo("value-2");
+        assertThat(four.join()).isEqualTo("value-4");
+        assertThat(calls).containsExactly(List.of(2, 4));
+    }
+
+    @Test
+    void testLoadAllSendsAtOnceInBatchesOfMaxSize() {
+        BatchLoader<Integer, String> loader = loader(2, Duration.ofHours(1), BatchLoaderTest::evenOnly);
+
+        Map<Integer, String> values = loader.loadAll(List.of(1, 2, 3, 2, 4));
+
+        assertThat(values).containsExactly(entry(1, null), entry(2, "value-2"), entry(3, null), entry(4, "value-4"));
+        assertThat(calls).containsExactly(List.of(1, 2), List.of(3, 4));
+        assertThat(meterRegistry.get("client.batch.size").summary().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("client.batch.ratio").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testFailedCallFailsEveryKeyOfTheBatch() {
+        BatchLoader<Integer, String> loader = loader(
+            100,
+            Duration.ofHours(1),
+            keys -> {
+                throw new IllegalStateException("account service down");
+            }
+        );
+
+        CompletableFuture<String> pending = loader.load(1);
+
+        assertThatThrownBy(() -> loader.loadAll(List.of(2))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(pending::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(calls).containsExactly(List.of(1, 2));
+    }
+
+    @Test
+    void testKeysOfDifferentUsersAreSentApartWithTheirSecurityContext() {
+        Map<List<Integer>, String> senders = new ConcurrentHashMap<>();
+        BatchLoader<Integer, String> loader = loader(
+            100,
+            Duration.ofMillis(50),
+            keys -> {
+                senders.put(keys, SecurityContextHolder.getContext().getAuthentication().getName());
+                return evenOnly(keys);
+            }
+        );
+
+        loginAs("alice");
+        CompletableFuture<String> aliceTwo = loader.load(2);
+        loginAs("bob");
+        CompletableFuture<String> bobFour = loader.load(4);
+        CompletableFuture<String> bobTwo = loader.load(2);
+        loginAs("alice");
+        CompletableFuture<String> aliceSix = loader.load(6);
+
+        // A key is not shared between users either
+        assertThat(bobTwo).isNotSameAs(aliceTwo);
+        assertThat(CompletableFuture.allOf(aliceTwo, bobFour, bobTwo, aliceSix).thenApply(done -> aliceSix.join()).join())
+            .isEqualTo("value-6");
+        assertThat(senders).containsOnly(entry(List.of(2, 6), "alice"), entry(List.of(4, 2), "bob"));
+    }
+
+    @Test
+    void testFullBatchIsSentWithTheSecurityContextOfItsUser() {
+        List<String> senders = Collections.synchronizedList(new ArrayList<>());
+        BatchLoader<Integer, String> loader = new BatchLoader<>(
+            "test",
+            keys -> {
+                senders.add(SecurityContextHolder.getContext().getAuthentication().getName());
+                return evenOnly(keys);
+            },
+            2,
+            Duration.ofHours(1),
+            scheduler,
+            // As the task executor, on another thread
+            command -> scheduler.execute(command),
+            meterRegistry
+        );
+
+        loginAs("alice");
+        CompletableFuture<String> two = loader.load(2);
+        CompletableFuture<String> four = loader.load(4);
+
+        assertThat(two.join()).isEqualTo("value-2");
+        assertThat(four.join()).isEqualTo("value-4");
+        assertThat(senders).containsExactly("alice");
+    }
+}
@@ -0,0 +1,79 @@
+package com.ensa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GzipRequestInterceptorTest {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private MockWebServer server;
+
+    private OkHttpClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient.Builder().addInterceptor(new GzipRequestInterceptor(1024)).build();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private RecordedRequest post(String body) throws Exception {
+        server.enqueue(new MockResponse());
+        Request request = new Request.Builder().url(server.url("/")).post(RequestBody.create(JSON, body)).build();
+        try (Response response = client.newCall(request).execute()) {
+            assertThat(response.isSuccessful()).isTrue();
+        }
+        return server.takeRequest();
+    }
+
+    @Test
+    void testLargeBodyIsCompressed() throws Exception {
+        String body = "{\"payload\":\"" + "x".repeat(4096) + "\"}";
+
+        RecordedRequest recorded = post(body);
+
+        assertThat(recorded.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(recorded.getBodySize()).isLessThan(body.length());
+        assertThat(Okio.buffer(new GzipSource(recorded.getBody())).readUtf8()).isEqualTo(body);
+    }
+
+    @Test
+    void testSmallBodyIsSentAsIs() throws Exception {
+        String body = "{\"payload\":\"x\"}";
+
+        RecordedRequest recorded = post(body);
+
+        assertThat(recorded.getHeader("Content-Encoding")).isNull();
+        assertThat(recorded.getBody().readUtf8()).isEqualTo(body);
+    }
+
+    @Test
+    void testBodylessRequestIsSentAsIs() throws Exception {
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            assertThat(response.body().string()).isEqualTo("ok");
+        }
+        assertThat(server.takeRequest().getHeader("Content-Encoding")).isNull();
+    }
+}
@@ -0,0 +1,258 @@
+package com.ensa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class StaleWhileRevalidateCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private static final Duration STALE_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private MutableClock clock;
+
+    private MeterRegistry meterRegistry;
+
+    private List<Runnable> refreshes;
+
+    private StaleWhileRevalidateCache<Integer, String> cache;
+
+    private AtomicInteger version;
+
+    private List<List<Integer>> fetches;
+
+    @BeforeEach
+    public void setup() {
+        clock = new MutableClock();
+        meterRegistry = new SimpleMeterRegistry();
+        refreshes = new ArrayList<>();
+        // Refreshes are run by the test, when it wants them to
+        cache = new StaleWhileRevalidateCache<>("test", TIME_TO_LIVE, STALE_TIME_TO_LIVE, 100, refreshes::add, meterRegistry, clock);
+        version = new AtomicInteger(1);
+        fetches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String fetch(Integer key) {
+        fetches.add(List.of(key));
+        return key + "-v" + version.get();
+    }
+
+    private Map<Integer, String> fetchAll(List<Integer> keys) {
+        fetches.add(keys);
+        return keys.stream().filter(key -> key > 0).collect(Collectors.toMap(key -> key, key -> key + "-v" + version.get()));
+    }
+
+    /**
+     * Like the account service, which rejects the calls made without the token of a user.
+     */
+    private String fetchAuthenticated(Integer key) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("401 Unauthorized");
+        }
+        return fetch(key);
+    }
+
+    private static String failing(Integer key) {
+        throw new IllegalStateException("account service down");
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("client.cache.gets").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testFreshEntryIsServedFromTheCache() {
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v1");
+        version.set(2);
+        clock.advance(TIME_TO_LIVE.minusSeconds(1));
+
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v1");
+        assertThat(fetches).hasSize(1);
+        assertThat(refreshes).isEmpty();
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("fresh")).isEqualTo(1);
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileRefreshed() {
+        cache.get(1, this::fetch);
+        version.set(2);
+        clock.advance(TIME_TO_LIVE);
+
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v1");
+        assertThat(refreshes).hasSize(1);
+        refreshes.get(0).run();
+
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v2");
+        assertThat(fetches).hasSize(2);
+        assertThat(gets("stale")).isEqualTo(1);
+    }
+
+    @Test
+    void testStaleEntryIsRefreshedWithTheSecurityContextOfTheCaller() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", "token"));
+        cache.get(1, this::fetchAuthenticated);
+        version.set(2);
+        clock.advance(TIME_TO_LIVE);
+        assertThat(cache.get(1, this::fetchAuthenticated)).isEqualTo("1-v1");
+
+        // On a thread of the executor, without a security context of its own
+        Thread refresh = new Thread(refreshes.get(0));
+        refresh.start();
+        refresh.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(meterRegistry.get("client.cache.fetch.failures").counter().count()).isZero();
+        assertThat(cache.get(1, this::fetchAuthenticated)).isEqualTo("1-v2");
+    }
+
+    @Test
+    void testStaleEntryIsRefreshedOnce() {
+        cache.get(1, this::fetch);
+        clock.advance(TIME_TO_LIVE);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get(1, this::fetch);
+        }
+
+        assertThat(refreshes).hasSize(1);
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileTheRemoteFails() {
+        cache.get(1, this::fetch);
+        clock.advance(TIME_TO_LIVE);
+        assertThat(cache.get(1, StaleWhileRevalidateCacheTest::failing)).isEqualTo("1-v1");
+        refreshes.get(0).run();
+        assertThat(meterRegistry.get("client.cache.fetch.failures").counter().count()).isEqualTo(1);
+
+        // Even once expired
+        clock.advance(STALE_TIME_TO_LIVE);
+        assertThat(cache.get(1, StaleWhileRevalidateCacheTest::failing)).isEqualTo("1-v1");
+        // Without an entry to fall back on, the failure surfaces
+        assertThatThrownBy(() -> cache.get(2, StaleWhileRevalidateCacheTest::failing)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testExpiredEntryIsFetchedBeforeBeingServed() {
+        cache.get(1, this::fetch);
+        version.set(2);
+        clock.advance(TIME_TO_LIVE.plus(STALE_TIME_TO_LIVE));
+
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v2");
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    void testGetAllOnlyFetchesTheMissingKeys() {
+        cache.getAll(List.of(1, 2), this::fetchAll);
+        clock.advance(TIME_TO_LIVE);
+
+        Map<Integer, String> values = cache.getAll(List.of(1, 2, 3, -1), this::fetchAll);
+
+        assertThat(values).containsOnlyKeys(1, 2, 3);
+        assertThat(fetches).containsExactly(List.of(1, 2), List.of(3, -1));
+        refreshes.get(0).run();
+        assertThat(fetches).containsExactly(List.of(1, 2), List.of(3, -1), List.of(1, 2));
+    }
+
+    @Test
+    void testEntryWithoutValueAnymoreIsDropped() {
+        cache.get(1, this::fetch);
+        clock.advance(TIME_TO_LIVE.plus(STALE_TIME_TO_LIVE));
+
+        assertThat(cache.get(1, key -> null)).isNull();
+        assertThat(cache.get(1, this::fetch)).isEqualTo("1-v1");
+        assertThat(fetches).hasSize(2);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneFetch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<String>> values = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                values.add(
+                    CompletableFuture.supplyAsync(
+                        () ->
+                            cache.get(
+                                1,
+                                key -> {
+                                    started.countDown();
+                                    try {
+                                        release.await(5, TimeUnit.SECONDS);
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                    return fetch(key);
+                                }
+                            ),
+                        callers
+                    )
+                );
+            }
+            started.await(5, TimeUnit.SECONDS);
+            // Let the other callers find the fetch in flight
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(values.stream().map(CompletableFuture::join)).containsOnly("1-v1");
+            assertThat(fetches).hasSize(1);
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
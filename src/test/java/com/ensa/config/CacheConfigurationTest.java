@@ -0,0 +1,207 @@
+package com.ensa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.ensa.config.cache.KafkaCacheInvalidationBus;
+import com.ensa.service.HotWaletTracker;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.ehcache.CacheManager;
+import org.ehcache.PersistentCacheManager;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.TopicPartitionOffset.SeekPosition;
+import org.springframework.util.unit.DataSize;
+import tech.jhipster.config.JHipsterProperties;
+
+class CacheConfigurationTest {
+
+    private static final String REGION = "com.ensa.domain.Walet";
+
+    private JHipsterProperties jHipsterProperties;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(100);
+        jHipsterProperties.getCache().getEhcache().setTimeToLiveSeconds(3600);
+        applicationProperties = new ApplicationProperties();
+    }
+
+    private CacheConfiguration<Object, Object> regionConfiguration(String cacheName) {
+        return new com.ensa.config.CacheConfiguration(jHipsterProperties, applicationProperties).regionConfiguration(cacheName);
+    }
+
+    private ApplicationProperties.Cache.Region region() {
+        ApplicationProperties.Cache.Region region = new ApplicationProperties.Cache.Region();
+        applicationProperties.getCache().getRegions().put(REGION, region);
+        return region;
+    }
+
+    @Test
+    void testUnconfiguredRegionUsesJHipsterDefaults() {
+        CacheConfiguration<Object, Object> configuration = regionConfiguration(REGION);
+
+        assertThat(configuration.getResourcePools().getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertThat(configuration.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+        assertThat(configuration.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(EntryUnit.ENTRIES);
+        assertThat(configuration.getExpiryPolicy().getExpiryForCreation(1L, "value")).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void testRegionSizedInBytesWithOffHeapTier() {
+        ApplicationProperties.Cache.Region region = region();
+        region.setHeapSize(DataSize.ofMegabytes(2));
+        region.setOffHeapSize(DataSize.ofMegabytes(8));
+
+        CacheConfiguration<Object, Object> configuration = regionConfiguration(REGION);
+
+        assertThat(configuration.getResourcePools().getResourceTypeSet())
+            .containsExactlyInAnyOrder(ResourceType.Core.HEAP, ResourceType.Core.OFFHEAP);
+        assertThat(configuration.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(MemoryUnit.B);
+        assertThat(configuration.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize())
+            .isEqualTo(DataSize.ofMegabytes(2).toBytes());
+    }
+
+    @Test
+    void testRegionWithTimeToIdle() {
+        region().setTimeToIdle(Duration.ofMinutes(5));
+
+        CacheConfiguration<Object, Object> configuration = regionConfiguration(REGION);
+
+        assertThat(configuration.getExpiryPolicy().getExpiryForCreation(1L, "value")).isEqualTo(Duration.ofMinutes(5));
+        assertThat(configuration.getExpiryPolicy().getExpiryForAccess(1L, () -> "value")).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testRegionPinningHotKeysAdvisesAgainstEvictingTheHotWalets() {
+        region().setPinHotKeys(true);
+        applicationProperties.getHotKeys().setSampleRate(1);
+        applicationProperties.getHotKeys().setTop(1);
+        HotWaletTracker hotWaletTracker = new HotWaletTracker(applicationProperties, null);
+        hotWaletTracker.record(7L);
+        com.ensa.config.CacheConfiguration cacheConfiguration = new com.ensa.config.CacheConfiguration(
+            jHipsterProperties,
+            applicationProperties
+        );
+        cacheConfiguration.setHotWaletTracker(hotWaletTracker);
+
+        CacheConfiguration<Object, Object> configuration = cacheConfiguration.regionConfiguration(REGION);
+
+        assertThat(configuration.getEvictionAdvisor().adviseAgainstEviction(7L, "hot")).isTrue();
+        assertThat(configuration.getEvictionAdvisor().adviseAgainstEviction(8L, "cold")).isFalse();
+        assertThat(regionConfiguration(REGION).getEvictionAdvisor()).isNull();
+    }
+
+    @Test
+    void testDiskTierRequiresDiskPath() {
+        region().setDiskSize(DataSize.ofMegabytes(16));
+
+        assertThatThrownBy(() -> regionConfiguration(REGION)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testDiskTierSurvivesRestart(@TempDir Path diskPath) {
+        applicationProperties.getCache().setDiskPath(diskPath.toString());
+        ApplicationProperties.Cache.Region region = region();
+        region.setHeapEntries(10L);
+        region.setOffHeapSize(DataSize.ofMegabytes(1));
+        region.setDiskSize(DataSize.ofMegabytes(16));
+        CacheConfiguration<Object, Object> configuration = regionConfiguration(REGION);
+
+        PersistentCacheManager cacheManager = CacheManagerBuilder
+            .newCacheManagerBuilder()
+            .with(CacheManagerBuilder.persistence(diskPath.toFile()))
+            .withCache(REGION, configuration)
+            .build(true);
+        cacheManager.getCache(REGION, Object.class, Object.class).put(1L, "walet");
+        cacheManager.close();
+
+        CacheManager restartedCacheManager = CacheManagerBuilder
+            .newCacheManagerBuilder()
+            .with(CacheManagerBuilder.persistence(diskPath.toFile()))
+            .withCache(REGION, configuration)
+            .build(true);
+        assertThat(restartedCacheManager.getCache(REGION, Object.class, Object.class).get(1L)).isEqualTo("walet");
+        restartedCacheManager.close();
+    }
+
+    private Object reloadedFromDisk(Path diskPath, ApplicationProperties.Cache.Invalidation.Transport transport) {
+        applicationProperties.getCache().setDiskPath(diskPath.toString());
+        applicationProperties.getCache().getInvalidation().setTransport(transport);
+        region().setDiskSize(DataSize.ofMegabytes(16));
+        com.ensa.config.CacheConfiguration configuration = new com.ensa.config.CacheConfiguration(jHipsterProperties, applicationProperties);
+        ObjectProvider<JCacheManagerCustomizer> customizers = new StaticListableBeanFactory(
+            Map.of("cacheManagerCustomizer", configuration.cacheManagerCustomizer())
+        )
+            .getBeanProvider(JCacheManagerCustomizer.class);
+
+        javax.cache.CacheManager cacheManager = configuration.jCacheCacheManager(customizers);
+        cacheManager.getCache(REGION).put(1L, "walet");
+        cacheManager.close();
+
+        javax.cache.CacheManager restartedCacheManager = configuration.jCacheCacheManager(customizers);
+        try {
+            return restartedCacheManager.getCache(REGION).get(1L);
+        } finally {
+            restartedCacheManager.close();
+        }
+    }
+
+    @Test
+    void testDiskTierIsReloadedOnStartupWithLocalInvalidations(@TempDir Path diskPath) {
+        assertThat(reloadedFromDisk(diskPath, ApplicationProperties.Cache.Invalidation.Transport.LOCAL)).isEqualTo("walet");
+    }
+
+    @Test
+    void testDiskTierIsClearedOnStartupWithKafkaInvalidations(@TempDir Path diskPath) {
+        assertThat(reloadedFromDisk(diskPath, ApplicationProperties.Cache.Invalidation.Transport.KAFKA)).isNull();
+    }
+
+    @Test
+    void testInvalidationListenerIsAssignedTheTopicWithoutConsumerGroup() {
+        KafkaMessageListenerContainer<String, String> container = new com.ensa.config.CacheConfiguration(
+            jHipsterProperties,
+            applicationProperties
+        )
+            .cacheInvalidationListenerContainer(
+                new DefaultKafkaConsumerFactory<>(
+                    Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:1"),
+                    new StringDeserializer(),
+                    new StringDeserializer()
+                ),
+                new KafkaCacheInvalidationBus(null, null, applicationProperties.getCache().getInvalidation().getTopic(), Runnable::run)
+            );
+
+        assertThat(container.getContainerProperties().getGroupId()).isNull();
+        assertThat(container.getContainerProperties().getTopicPartitions())
+            .extracting(TopicPartitionOffset::getTopic, TopicPartitionOffset::getPartition, TopicPartitionOffset::getPosition)
+            .containsExactly(tuple(applicationProperties.getCache().getInvalidation().getTopic(), 0, SeekPosition.END));
+
+        container.start();
+        try {
+            assertThat(container.isRunning()).as("no group id is required").isTrue();
+        } finally {
+            container.stop();
+        }
+    }
+}
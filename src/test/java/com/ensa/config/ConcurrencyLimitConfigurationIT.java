@@ -0,0 +1,42 @@
+package com.ensa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ensa.IntegrationTest;
+import com.ensa.web.rest.ConcurrencyLimitInterceptor;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Integration tests for the requests the {@link ConcurrencyLimitConfiguration} puts behind the concurrency limit.
+ */
+@IntegrationTest
+class ConcurrencyLimitConfigurationIT {
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private List<HandlerInterceptor> interceptors(String uri) throws Exception {
+        HandlerExecutionChain chain = handlerMapping.getHandler(new MockHttpServletRequest("GET", uri));
+        assertThat(chain).isNotNull();
+        return chain.getInterceptorList();
+    }
+
+    @Test
+    void testWaletRequestsAreLimited() throws Exception {
+        assertThat(interceptors("/api/walets/1")).hasAtLeastOneElementOfType(ConcurrencyLimitInterceptor.class);
+        assertThat(interceptors("/api/walets")).hasAtLeastOneElementOfType(ConcurrencyLimitInterceptor.class);
+    }
+
+    @Test
+    void testStreamIsNotLimited() throws Exception {
+        assertThat(interceptors("/api/walets/stream")).noneMatch(ConcurrencyLimitInterceptor.class::isInstance);
+    }
+}
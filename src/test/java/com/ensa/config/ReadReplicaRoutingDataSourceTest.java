@@ -0,0 +1,131 @@
+package com.ensa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ensa.security.AuthoritiesConstants;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests {@link ReadReplicaRoutingDataSource} with two H2 databases, each knowing its own name.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private static final Duration PIN_AFTER_WRITE = Duration.ofSeconds(5);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    public void setup() {
+        DataSource routingDataSource = new LazyConnectionDataSourceProxy(
+            new ReadReplicaRoutingDataSource(database("primary"), database("replica"), PIN_AFTER_WRITE, nanoTime::get)
+        );
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routingDataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnly()).isEqualTo("replica");
+        assertThat(readWrite()).isEqualTo("primary");
+        assertThat(currentDatabase()).isEqualTo("primary");
+    }
+
+    @Test
+    void testClientReadsFromThePrimaryAfterWriting() {
+        authenticate("writer");
+        readWrite();
+
+        assertThat(readOnly()).isEqualTo("primary");
+        nanoTime.addAndGet(PIN_AFTER_WRITE.toNanos() - 1);
+        assertThat(readOnly()).isEqualTo("primary");
+        nanoTime.addAndGet(1);
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void testPrimaryReadsGoToThePrimaryWithoutPinning() {
+        authenticate("reader");
+
+        assertThat(PrimaryReads.run(this::readOnly)).isEqualTo("primary");
+        assertThat(PrimaryReads.run(() -> PrimaryReads.run(this::readOnly) + "," + readOnly())).isEqualTo("primary,primary");
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void testOnlyTheWriterIsPinned() {
+        authenticate("writer");
+        readWrite();
+
+        authenticate("reader");
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void testRolledBackTransactionDoesNotPin() {
+        authenticate("writer");
+        readWriteTransaction.executeWithoutResult(status -> {
+            currentDatabase();
+            status.setRollbackOnly();
+        });
+
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    private String readOnly() {
+        return readOnlyTransaction.execute(status -> currentDatabase());
+    }
+
+    private String readWrite() {
+        return readWriteTransaction.execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(10))");
+        jdbcTemplate.execute("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private static void authenticate(String login) {
+        SecurityContextHolder
+            .getContext()
+            .setAuthentication(
+                new UsernamePasswordAuthenticationToken(login, "", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+            );
+    }
+}
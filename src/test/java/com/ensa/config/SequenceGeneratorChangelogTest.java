@@ -0,0 +1,107 @@
+package com.ensa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests the seed of the {@code sequence_generator} table of MySQL, run on H2 in MySQL mode, with ids drawn from it the
+ * way Hibernate does when the database has no sequences: the pooled optimizer of {@code @SequenceGenerator}, with its
+ * default allocation size of 50, over a table whose value is read then increased by 50.
+ */
+class SequenceGeneratorChangelogTest {
+
+    private static final String CHANGELOG = "config/liquibase/changelog/20261018120000_added_sequence_generator.xml";
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:sequence" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        database.setUser("sa");
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table walet (id bigint primary key)");
+        jdbcTemplate.execute("create table sequence_generator (next_val bigint)");
+    }
+
+    private static String mysqlSeed() throws Exception {
+        try (InputStream changelog = SequenceGeneratorChangelogTest.class.getClassLoader().getResourceAsStream(CHANGELOG)) {
+            NodeList changeSets = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(changelog).getElementsByTagName("changeSet");
+            for (int i = 0; i < changeSets.getLength(); i++) {
+                Element changeSet = (Element) changeSets.item(i);
+                if (changeSet.getAttribute("dbms").contains("mysql")) {
+                    return changeSet.getElementsByTagName("sql").item(0).getTextContent().trim();
+                }
+            }
+        }
+        throw new IllegalStateException("No MySQL changeset in " + CHANGELOG);
+    }
+
+    private List<Long> nextIds(int count) {
+        Optimizer optimizer = OptimizerFactory.buildOptimizer(
+            StandardOptimizerDescriptor.POOLED.getExternalName(),
+            Long.class,
+            ALLOCATION_SIZE,
+            -1
+        );
+        AccessCallback table = new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                Long value = jdbcTemplate.queryForObject("select next_val from sequence_generator", Long.class);
+                jdbcTemplate.update("update sequence_generator set next_val = ?", value + ALLOCATION_SIZE);
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(value);
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return null;
+            }
+        };
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add((Long) optimizer.generate(table));
+        }
+        return ids;
+    }
+
+    @Test
+    void testIdsStartAboveThoseInUse() throws Exception {
+        for (long id = 1; id <= 5000; id += 7) {
+            jdbcTemplate.update("insert into walet (id) values (?)", id);
+        }
+        long maxId = jdbcTemplate.queryForObject("select max(id) from walet", Long.class);
+
+        jdbcTemplate.execute(mysqlSeed());
+        List<Long> ids = nextIds(3 * ALLOCATION_SIZE);
+
+        assertThat(ids).allMatch(id -> id > maxId).doesNotHaveDuplicates();
+        for (Long id : ids) {
+            jdbcTemplate.update("insert into walet (id) values (?)", id);
+        }
+    }
+
+    @Test
+    void testIdsStartAtTheFloorOnAnEmptyTable() throws Exception {
+        jdbcTemplate.execute(mysqlSeed());
+
+        assertThat(nextIds(ALLOCATION_SIZE + 1)).startsWith(1001L, 1002L).endsWith(1051L).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,84 @@
+package com.ensa.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests {@link StatementMetrics} behind a proxy of an H2 database.
+ */
+class StatementMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private StatementMetrics statementMetrics;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties.Sql properties = new ApplicationProperties.Sql();
+        properties.setMaxStatementShapes(2);
+        meterRegistry = new SimpleMeterRegistry();
+        statementMetrics = new StatementMetrics(properties, meterRegistry);
+        JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+        database.setUser("sa");
+        DataSource dataSource = ProxyDataSourceBuilder.create(database).listener(statementMetrics).build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testNormalize() {
+        assertThat(StatementMetrics.normalize("select * from walet where id = 42 and name = 'it''s'"))
+            .isEqualTo("select * from walet where id = ? and name = ?");
+        assertThat(StatementMetrics.normalize("select w1_0.id from walet w1_0\n  where w1_0.id in (?, ?,?)"))
+            .isEqualTo("select w1_0.id from walet w1_0 where w1_0.id in (?)");
+        assertThat(StatementMetrics.normalize("select 1.5, x2 from dual")).isEqualTo("select ?, x2 from dual");
+    }
+
+    @Test
+    void testStatementsAreTimedByShape() {
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        jdbcTemplate.queryForObject("select 2", Integer.class);
+        jdbcTemplate.queryForObject("select ?", Integer.class, 3);
+
+        assertThat(timer("select ?").count()).isEqualTo(3);
+    }
+
+    @Test
+    void testShapesBeyondTheMaximumAreTimedTogether() {
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        jdbcTemplate.queryForObject("select 1 + 1", Integer.class);
+        jdbcTemplate.queryForObject("select 1 * 1", Integer.class);
+        jdbcTemplate.queryForObject("select 1 - 1", Integer.class);
+
+        assertThat(meterRegistry.find(StatementMetrics.TIMER_NAME).timers()).hasSize(3);
+        assertThat(timer("select ?").count()).isEqualTo(1);
+        assertThat(timer("select ? + ?").count()).isEqualTo(1);
+        assertThat(timer(StatementMetrics.OTHER_SHAPE).count()).isEqualTo(2);
+    }
+
+    @Test
+    void testStatementsAreCountedWhileCounting() {
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        statementMetrics.startCounting();
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        jdbcTemplate.queryForObject("select 2", Integer.class);
+
+        assertThat(statementMetrics.stopCounting()).isEqualTo(2);
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        assertThat(statementMetrics.stopCounting()).isZero();
+    }
+
+    private Timer timer(String shape) {
+        return meterRegistry.get(StatementMetrics.TIMER_NAME).tag("query", shape).timer();
+    }
+}
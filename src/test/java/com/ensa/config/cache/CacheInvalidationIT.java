@@ -0,0 +1,187 @@
+package com.ensa.config.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.Walet;
+import com.ensa.repository.WaletRepository;
+import com.ensa.web.rest.WaletResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link CacheInvalidationPublisher} and the {@link CacheInvalidationReceiver}, over the
+ * {@link LocalCacheInvalidationBus}: the other instances are played by publishing invalidations of another origin.
+ * The walets are committed, as the invalidations are published once they are, with the second-level cache the other
+ * tests run without.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+@AutoConfigureMockMvc
+@WithMockUser
+class CacheInvalidationIT {
+
+    private static final String ENTITY = Walet.class.getName();
+
+    private static final String OTHER_NODE = "other-node";
+
+    private static final AtomicInteger logins = new AtomicInteger();
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restWaletMockMvc;
+
+    private final List<CacheInvalidation> published = new ArrayList<>();
+
+    private final Consumer<CacheInvalidation> subscriber = published::add;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        cacheInvalidationBus.subscribe(subscriber);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheInvalidationBus.unsubscribe(subscriber);
+        waletRepository.deleteAll(waletRepository.findAllById(ids));
+    }
+
+    private Walet save(Walet walet) {
+        Walet saved = waletRepository.save(walet);
+        ids.add(saved.getId());
+        return saved;
+    }
+
+    private static Walet newWalet() {
+        return new Walet().idCLient(1L).login("cache-invalidation-" + logins.incrementAndGet());
+    }
+
+    @Test
+    void testCommittedWritesArePublishedOnceByEntity() {
+        List<Walet> walets = transaction.execute(status -> {
+            List<Walet> saved = List.of(save(newWalet()), save(newWalet()));
+            waletRepository.flush();
+            assertThat(published).isEmpty();
+            return saved;
+        });
+
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0).getOrigin()).isEqualTo(cacheInvalidationBus.getNode());
+        assertThat(published.get(0).getEntity()).isEqualTo(ENTITY);
+        assertThat(published.get(0).getIds()).containsExactly(walets.get(0).getId(), walets.get(1).getId());
+        assertThat(published.get(0).isNaturalIds()).isFalse();
+    }
+
+    @Test
+    void testChangedNaturalIdsArePublished() {
+        Walet walet = save(newWalet());
+        published.clear();
+
+        waletRepository.save(walet.idCLient(2L));
+        waletRepository.save(walet.login("cache-invalidation-" + logins.incrementAndGet()));
+        waletRepository.deleteById(walet.getId());
+
+        assertThat(published).extracting(CacheInvalidation::isNaturalIds).containsExactly(false, true, true);
+        assertThat(published).allSatisfy(invalidation -> assertThat(invalidation.getIds()).containsExactly(walet.getId()));
+    }
+
+    @Test
+    void testRolledBackWritesAreNotPublished() {
+        transaction.executeWithoutResult(status -> {
+            save(newWalet());
+            waletRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void testPartialUpdatesArePublished() throws Exception {
+        Walet walet = save(newWalet());
+        published.clear();
+
+        restWaletMockMvc
+            .perform(
+                patch("/api/walets/{id}", walet.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"id\":" + walet.getId() + ",\"login\":\"cache-invalidation-" + logins.incrementAndGet() + "\"}")
+            )
+            .andExpect(status().isOk());
+
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0).getIds()).containsExactly(walet.getId());
+        assertThat(published.get(0).isNaturalIds()).isTrue();
+    }
+
+    @Test
+    void testInvalidationsOfOtherInstancesEvictTheirKeysOnly() {
+        Walet changed = save(newWalet());
+        Walet unchanged = save(newWalet());
+        long missingId = Long.MAX_VALUE - 1;
+        Cache<Object, Object> missingWalets = cacheManager.getCache(WaletResource.MISSING_WALETS_CACHE);
+        missingWalets.put(missingId, Boolean.TRUE);
+        transaction.executeWithoutResult(status -> waletRepository.findAllById(List.of(changed.getId(), unchanged.getId())));
+        assertThat(entityManagerFactory.getCache().contains(Walet.class, changed.getId())).isTrue();
+        double received = meterRegistry.counter("cache.invalidations.received", "entity", ENTITY).count();
+
+        cacheInvalidationBus.publish(new CacheInvalidation(OTHER_NODE, ENTITY, Set.of(changed.getId(), missingId), false));
+
+        assertThat(entityManagerFactory.getCache().contains(Walet.class, changed.getId())).isFalse();
+        assertThat(entityManagerFactory.getCache().contains(Walet.class, unchanged.getId())).isTrue();
+        assertThat(missingWalets.containsKey(missingId)).isFalse();
+        assertThat(meterRegistry.counter("cache.invalidations.received", "entity", ENTITY).count()).isEqualTo(received + 2);
+    }
+
+    @Test
+    void testOwnInvalidationsAreIgnored() {
+        Walet walet = save(newWalet());
+        transaction.executeWithoutResult(status -> waletRepository.findById(walet.getId()));
+
+        cacheInvalidationBus.publish(new CacheInvalidation(cacheInvalidationBus.getNode(), ENTITY, Set.of(walet.getId()), true));
+
+        assertThat(entityManagerFactory.getCache().contains(Walet.class, walet.getId())).isTrue();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ensa.config.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Test class for the {@link KafkaCacheInvalidationBus}, with a mock producer standing for the broker.
+ */
+class KafkaCacheInvalidationBusTest {
+
+    private static final String TOPIC = "cache-invalidation";
+
+    private MockProducer<String, String> producer;
+
+    private KafkaCacheInvalidationBus bus;
+
+    private final List<CacheInvalidation> delivered = new ArrayList<>();
+
+    private final List<Runnable> sends = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        bus = new KafkaCacheInvalidationBus(new KafkaTemplate<>(() -> producer), new ObjectMapper(), TOPIC, sends::add);
+        bus.subscribe(delivered::add);
+    }
+
+    @Test
+    void testInvalidationsAreSentKeyedByEntityAndDeliveredOnReceipt() {
+        bus.publish(new CacheInvalidation(bus.getNode(), "com.ensa.domain.Walet", Set.of(3L), true));
+
+        assertThat(producer.history()).as("sent from the executor, not the publishing thread").isEmpty();
+        assertThat(sends).hasSize(1);
+
+        sends.forEach(Runnable::run);
+
+        assertThat(delivered).isEmpty();
+        assertThat(producer.history()).hasSize(1);
+        ProducerRecord<String, String> sent = producer.history().get(0);
+        assertThat(sent.topic()).isEqualTo(TOPIC);
+        assertThat(sent.key()).isEqualTo("com.ensa.domain.Walet");
+
+        bus.onMessage(new ConsumerRecord<>(TOPIC, 0, 0L, sent.key(), sent.value()));
+
+        assertThat(delivered).hasSize(1);
+        assertThat(delivered.get(0).getOrigin()).isEqualTo(bus.getNode());
+        assertThat(delivered.get(0).getEntity()).isEqualTo("com.ensa.domain.Walet");
+        assertThat(delivered.get(0).getIds()).containsExactly(3L);
+        assertThat(delivered.get(0).isNaturalIds()).isTrue();
+    }
+
+    @Test
+    void testUnreadableMessagesAreIgnored() {
+        bus.onMessage(new ConsumerRecord<>(TOPIC, 0, 0L, "com.ensa.domain.Walet", "{not json"));
+
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    void testFailingSubscribersDoNotKeepTheOthersFromDelivery() {
+        List<CacheInvalidation> others = new ArrayList<>();
+        bus.subscribe(invalidation -> {
+            throw new IllegalStateException("failing subscriber");
+        });
+        bus.subscribe(others::add);
+
+        bus.onMessage(new ConsumerRecord<>(TOPIC, 0, 0L, "com.ensa.domain.Walet", "{\"origin\":\"other\",\"ids\":[1]}"));
+
+        assertThat(delivered).hasSize(1);
+        assertThat(others).hasSize(1);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ensa.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ensa.web.rest.TestUtil;
+import org.junit.jupiter.api.Test;
+
+class BalanceSnapshotTest {
+
+    @Test
+    void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(BalanceSnapshot.class);
+        BalanceSnapshot balanceSnapshot1 = new BalanceSnapshot();
+        balanceSnapshot1.setId(1L);
+        BalanceSnapshot balanceSnapshot2 = new BalanceSnapshot();
+        balanceSnapshot2.setId(balanceSnapshot1.getId());
+        assertThat(balanceSnapshot1).isEqualTo(balanceSnapshot2);
+        balanceSnapshot2.setId(2L);
+        assertThat(balanceSnapshot1).isNotEqualTo(balanceSnapshot2);
+        balanceSnapshot1.setId(null);
+        assertThat(balanceSnapshot1).isNotEqualTo(balanceSnapshot2);
+    }
+}
@@ -20,4 +20,11 @@ class WaletTest {
         walet1.setId(null);
         assertThat(walet1).isNotEqualTo(walet2);
     }
+
+    @Test
+    void toStringLeavesThePasswordOut() {
+        Walet walet = new Walet().login("login").password("secret");
+
+        assertThat(walet.toString()).contains("login").doesNotContain("secret");
+    }
 }
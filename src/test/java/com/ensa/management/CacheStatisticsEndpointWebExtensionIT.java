@@ -0,0 +1,95 @@
+package com.ensa.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.Walet;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link CacheStatisticsEndpointWebExtension} and the cache and entity meters.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+class CacheStatisticsEndpointWebExtensionIT {
+
+    private static final String REGION = Walet.class.getName();
+
+    private static final String KEY = "cache-statistics-it";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restCachesMockMvc;
+
+    private Cache<Object, Object> cache;
+
+    @BeforeEach
+    public void setup() {
+        cache = cacheManager.getCache(REGION);
+        cache.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.clear();
+    }
+
+    @Test
+    void testCachesListTheirStatistics() throws Exception {
+        long hits = cacheMeter("cache.gets", "hit");
+        long misses = cacheMeter("cache.gets", "miss");
+        cache.put(KEY, "value");
+        cache.get(KEY);
+        cache.get(KEY + "-missing");
+
+        restCachesMockMvc
+            .perform(get("/management/caches"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches['" + REGION + "'].target").isNotEmpty())
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches['" + REGION + "'].hits").value(hits + 1))
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches['" + REGION + "'].misses").value(misses + 1))
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches['" + REGION + "'].size").value(1))
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches['" + REGION + "'].tiers.OnHeap.size").value(1));
+    }
+
+    @Test
+    void testSingleCacheIsStillDescribed() throws Exception {
+        restCachesMockMvc
+            .perform(get("/management/caches/{cache}", REGION))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(REGION))
+            .andExpect(jsonPath("$.cacheManager").value("cacheManager"));
+        restCachesMockMvc.perform(get("/management/caches/{cache}", "unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCachesAndEntitiesHaveMeters() {
+        long hits = cacheMeter("cache.gets", "hit");
+        cache.put(KEY, "value");
+        cache.get(KEY);
+
+        assertThat(cacheMeter("cache.gets", "hit")).isEqualTo(hits + 1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", REGION).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.tier.size").tag("cache", REGION).tag("tier", "OnHeap").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("hibernate.entity.loads").tag("entity", REGION).functionCounter()).isNotNull();
+    }
+
+    private long cacheMeter(String name, String result) {
+        return (long) meterRegistry.get(name).tag("cache", REGION).tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,62 @@
+package com.ensa.management;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.domain.Walet;
+import com.ensa.repository.WaletRepository;
+import com.ensa.service.LedgerService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link HotKeysEndpoint}, with every walet id seen counted, see the test
+ * {@code application.hot-keys.sample-rate}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class HotKeysEndpointIT {
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Test
+    @Transactional
+    void testWaletsLookedUpAndTransferredBetweenAreListed() throws Exception {
+        Walet merchant = waletRepository.saveAndFlush(new Walet().login("hot-keys-merchant"));
+        Walet payroll = waletRepository.saveAndFlush(new Walet().login("hot-keys-payroll"));
+        for (int i = 0; i < 50; i++) {
+            restMockMvc.perform(get("/api/walets/{id}", merchant.getId())).andExpect(status().isOk());
+            ledgerService.post(
+                List.of(new LedgerEntry().waletId(payroll.getId()).amount(-1L), new LedgerEntry().waletId(merchant.getId()).amount(1L))
+            );
+        }
+
+        restMockMvc
+            .perform(get("/management/hotkeys"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.enabled").value(true))
+            .andExpect(jsonPath("$.sampleRate").value(1.0))
+            .andExpect(jsonPath("$.walets[*].key").value(hasItem(merchant.getId().intValue())))
+            .andExpect(jsonPath("$.walets[*].key").value(hasItem(payroll.getId().intValue())))
+            .andExpect(jsonPath("$.walets[?(@.key == " + merchant.getId() + ")].count").value(everyItem(greaterThanOrEqualTo(100))));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ensa.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.IdempotencyRecord;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the claims of idempotency keys through the {@link IdempotencyRecordRepository}, committed as
+ * the claims of two instances would be.
+ */
+@IntegrationTest
+class IdempotencyRecordRepositoryIT {
+
+    private static final String KEY = "a".repeat(64);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanup() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    private static IdempotencyRecord claim(String requestHash) {
+        Instant now = Instant.now();
+        return new IdempotencyRecord().id(KEY).requestHash(requestHash).createdDate(now).expiresAt(now.plus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testSecondOfTwoRacingClaimsFails() throws Exception {
+        CountDownLatch bothRead = new CountDownLatch(2);
+        CountDownLatch firstCommitted = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            transaction.executeWithoutResult(status -> {
+                assertThat(idempotencyRecordRepository.findById(KEY)).isEmpty();
+                bothRead.countDown();
+                await(bothRead);
+                idempotencyRecordRepository.saveAndFlush(claim("first"));
+            });
+            firstCommitted.countDown();
+        });
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+            transaction.executeWithoutResult(status -> {
+                assertThat(idempotencyRecordRepository.findById(KEY)).isEmpty();
+                bothRead.countDown();
+                await(firstCommitted);
+                idempotencyRecordRepository.saveAndFlush(claim("second"));
+            })
+        );
+
+        first.get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(idempotencyRecordRepository.findById(KEY)).get().extracting(IdempotencyRecord::getRequestHash).isEqualTo("first");
+    }
+
+    @Test
+    void testExpiredClaimIsDeletedAlone() {
+        idempotencyRecordRepository.saveAndFlush(claim("expired").expiresAt(Instant.now().minusSeconds(1)));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Integer otherKeysDeleted = transaction.execute(status -> idempotencyRecordRepository.deleteExpired("b".repeat(64), Instant.now()));
+        Integer keysDeleted = transaction.execute(status -> idempotencyRecordRepository.deleteExpired(KEY, Instant.now()));
+
+        assertThat(otherKeysDeleted).isZero();
+        assertThat(keysDeleted).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.findById(KEY)).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ensa.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonWebKeySetTest {
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+    private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private static final KeyPair RSA_KEY = Keys.keyPairFor(SignatureAlgorithm.RS256);
+
+    private static final KeyPair EC_KEY = Keys.keyPairFor(SignatureAlgorithm.ES256);
+
+    private static final KeyPair ROTATED_KEY = Keys.keyPairFor(SignatureAlgorithm.RS256);
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private MutableClock clock;
+
+    private List<Runnable> refreshes;
+
+    private JsonWebKeySet jsonWebKeySet;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = directory.resolve("jwks.json");
+        JwkTestUtil.writeJwks(file, Map.of("rsa", RSA_KEY.getPublic(), "ec", EC_KEY.getPublic()));
+        clock = new MutableClock();
+        refreshes = new ArrayList<>();
+        // Background refreshes are run by the test, when it wants them to
+        jsonWebKeySet =
+            new JsonWebKeySet(
+                file.toUri().toString(),
+                REFRESH_INTERVAL,
+                MIN_REFRESH_INTERVAL,
+                Duration.ofSeconds(1),
+                refreshes::add,
+                clock
+            );
+        assertThat(jsonWebKeySet.refresh()).isTrue();
+    }
+
+    @Test
+    void testKeysAreFoundById() {
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey("ec", "ES256")).isEqualTo(EC_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey(null, "RS256")).isNull();
+    }
+
+    @Test
+    void testKeyDeclaredForAnotherAlgorithmIsNotReturned() throws IOException {
+        String rsa = JwkTestUtil.toJwk("rsa", RSA_KEY.getPublic()).replace("\"use\"", "\"alg\":\"RS512\",\"use\"");
+        Files.writeString(file, "{\"keys\":[" + rsa + "]}");
+        jsonWebKeySet.refresh();
+
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isNull();
+        assertThat(jsonWebKeySet.getKey("rsa", "RS512")).isEqualTo(RSA_KEY.getPublic());
+    }
+
+    @Test
+    void testUnknownKeyIdLoadsTheSetInTheBackgroundAtMostOncePerInterval() throws IOException {
+        JwkTestUtil.writeJwks(file, Map.of("rsa", RSA_KEY.getPublic(), "rotated", ROTATED_KEY.getPublic()));
+        assertThat(jsonWebKeySet.getKey("rotated", "RS256")).isNull();
+        assertThat(refreshes).isEmpty();
+
+        clock.advance(MIN_REFRESH_INTERVAL);
+        // Not waited for
+        assertThat(jsonWebKeySet.getKey("rotated", "RS256")).isNull();
+        assertThat(jsonWebKeySet.getKey("rotated", "RS256")).isNull();
+        assertThat(refreshes).hasSize(1);
+        refreshes.get(0).run();
+        assertThat(jsonWebKeySet.getKey("rotated", "RS256")).isEqualTo(ROTATED_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey("ec", "ES256")).isNull();
+
+        // Unknown ids do not load it again within the interval
+        JwkTestUtil.writeJwks(file, Map.of("ec", EC_KEY.getPublic()));
+        assertThat(jsonWebKeySet.getKey("ec", "ES256")).isNull();
+        assertThat(refreshes).hasSize(1);
+
+        clock.advance(MIN_REFRESH_INTERVAL);
+        assertThat(jsonWebKeySet.getKey("ec", "ES256")).isNull();
+        assertThat(refreshes).hasSize(2);
+        refreshes.get(1).run();
+        assertThat(jsonWebKeySet.getKey("ec", "ES256")).isEqualTo(EC_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isNull();
+    }
+
+    @Test
+    void testSetIsRefreshedInTheBackgroundOnceStale() throws IOException {
+        JwkTestUtil.writeJwks(file, Map.of("rotated", ROTATED_KEY.getPublic()));
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+        assertThat(refreshes).isEmpty();
+
+        clock.advance(REFRESH_INTERVAL);
+        // Served from the stale set while it is refreshed, which is only asked for once
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+        assertThat(refreshes).hasSize(1);
+        refreshes.get(0).run();
+
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isNull();
+        assertThat(jsonWebKeySet.getKey("rotated", "RS256")).isEqualTo(ROTATED_KEY.getPublic());
+    }
+
+    @Test
+    void testKeysAreKeptWhenTheSetCannotBeLoaded() throws IOException {
+        Files.writeString(file, "{\"keys\":");
+
+        assertThat(jsonWebKeySet.refresh()).isFalse();
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+    }
+
+    @Test
+    void testUnsupportedAndInvalidKeysAreSkipped() throws IOException {
+        Files.writeString(
+            file,
+            "{\"keys\":[" +
+            JwkTestUtil.toJwk("rsa", RSA_KEY.getPublic()) +
+            "," +
+            JwkTestUtil.toJwk("encryption", EC_KEY.getPublic()).replace("\"kty\"", "\"use\":\"enc\",\"kty\"") +
+            ",{\"kty\":\"OKP\",\"kid\":\"ed\",\"crv\":\"Ed25519\",\"x\":\"11qYAYKxCrfVS_7TyWQHOg7hcvPapiMlrwIaaPcHURo\"}" +
+            ",{\"kty\":\"RSA\",\"kid\":\"invalid\",\"n\":\"!\"}" +
+            "]}"
+        );
+        jsonWebKeySet.refresh();
+
+        assertThat(jsonWebKeySet.getKey("rsa", "RS256")).isEqualTo(RSA_KEY.getPublic());
+        assertThat(jsonWebKeySet.getKey("encryption", "ES256")).isNull();
+        assertThat(jsonWebKeySet.getKey("ed", "EdDSA")).isNull();
+        assertThat(jsonWebKeySet.getKey("invalid", "RS256")).isNull();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ensa.security.jwt;
+
+import io.jsonwebtoken.io.Encoders;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class writing JSON Web Key Sets for testing.
+ */
+public final class JwkTestUtil {
+
+    /**
+     * Writes the public keys to a JSON Web Key Set file.
+     *
+     * @param file the file to write.
+     * @param keys the keys, by key id.
+     */
+    public static void writeJwks(Path file, Map<String, PublicKey> keys) throws IOException {
+        String jwks = keys.entrySet().stream().map(key -> toJwk(key.getKey(), key.getValue())).collect(Collectors.joining(","));
+        Files.writeString(file, "{\"keys\":[" + jwks + "]}");
+    }
+
+    /**
+     * @return the JSON Web Key of a public key.
+     */
+    public static String toJwk(String keyId, PublicKey key) {
+        if (key instanceof RSAPublicKey) {
+            RSAPublicKey rsaKey = (RSAPublicKey) key;
+            return String.format(
+                "{\"kty\":\"RSA\",\"kid\":\"%s\",\"use\":\"sig\",\"n\":\"%s\",\"e\":\"%s\"}",
+                keyId,
+                encode(rsaKey.getModulus()),
+                encode(rsaKey.getPublicExponent())
+            );
+        }
+        ECPublicKey ecKey = (ECPublicKey) key;
+        int fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+        return String.format(
+            "{\"kty\":\"EC\",\"kid\":\"%s\",\"crv\":\"P-%d\",\"x\":\"%s\",\"y\":\"%s\"}",
+            keyId,
+            fieldSize,
+            encode(ecKey.getW().getAffineX()),
+            encode(ecKey.getW().getAffineY())
+        );
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            // The sign byte is not part of the unsigned value
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Encoders.BASE64URL.encode(bytes);
+    }
+
+    private JwkTestUtil() {}
+}
@@ -0,0 +1,99 @@
+package com.ensa.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RevocationListTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    void testTokenIsRevokedUntilItExpires() {
+        RevocationList revocationList = new RevocationList(100);
+        revocationList.add("revoked", NOW + 1000);
+
+        assertThat(revocationList.isRevoked("revoked", NOW)).isTrue();
+        assertThat(revocationList.isRevoked("other", NOW)).isFalse();
+        assertThat(revocationList.isRevoked("revoked", NOW + 1000)).isFalse();
+    }
+
+    @Test
+    void testExpiredRevocationsAreRemoved() {
+        RevocationList revocationList = new RevocationList(100);
+        revocationList.add("expired", NOW + 10);
+        revocationList.add("live", NOW + 1000);
+
+        assertThat(revocationList.removeExpired(NOW + 500)).isEqualTo(1);
+        assertThat(revocationList.size()).isEqualTo(1);
+        assertThat(revocationList.isRevoked("live", NOW + 500)).isTrue();
+
+        // Still revoked once added again
+        revocationList.add("expired", NOW + 2000);
+        assertThat(revocationList.isRevoked("expired", NOW + 500)).isTrue();
+    }
+
+    @Test
+    void testRevocationsBeyondTheExpectedOnesAreKept() {
+        RevocationList revocationList = new RevocationList(64);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String key = UUID.randomUUID().toString();
+            keys.add(key);
+            revocationList.add(key, NOW + 1000);
+        }
+
+        assertThat(keys).allMatch(key -> revocationList.isRevoked(key, NOW));
+    }
+
+    @Test
+    void testFalsePositiveRateOfTheFilterIsLow() {
+        RevocationList revocationList = new RevocationList(1000);
+        for (int i = 0; i < 1000; i++) {
+            revocationList.add(UUID.randomUUID().toString(), NOW + 1000);
+        }
+
+        int matches = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (revocationList.mightBeRevoked(UUID.randomUUID().toString())) {
+                matches++;
+            }
+        }
+
+        assertThat(matches).isLessThan(100_000 * 3 / 100);
+    }
+
+    @Test
+    void testCheckOfATokenNotRevokedDoesNotAllocate() {
+        RevocationList revocationList = new RevocationList(1000);
+        for (int i = 0; i < 1000; i++) {
+            revocationList.add(UUID.randomUUID().toString(), NOW + 1000);
+        }
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String key = UUID.randomUUID().toString();
+            // As for the keys of cached tokens, the hash code of the string is computed once
+            key.hashCode();
+            keys.add(key);
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        int revoked = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (revocationList.isRevoked(keys.get(i % keys.size()), NOW)) {
+                revoked++;
+            }
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(revoked).isLessThan(100_000 / 20);
+        // Only the false positives of the filter look up the exact set, which boxes nothing either
+        assertThat(allocated).isLessThan(1024);
+    }
+}
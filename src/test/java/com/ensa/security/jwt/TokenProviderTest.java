@@ -1,19 +1,29 @@
 package com.ensa.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.ensa.config.ApplicationProperties;
 import com.ensa.management.SecurityMetersService;
 import com.ensa.security.AuthoritiesConstants;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.time.Instant;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -25,19 +35,24 @@ class TokenProviderTest {
 
     private static final long ONE_MINUTE = 60000;
 
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    @TempDir
+    Path directory;
+
     private Key key;
     private TokenProvider tokenProvider;
 
     @BeforeEach
     public void setup() {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
-        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
-        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
-        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BASE64_SECRET));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
@@ -88,6 +103,32 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testVerifiedTokenIsServedFromCache() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication first = tokenProvider.getAuthentication(token);
+        Authentication second = tokenProvider.getAuthentication(token);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPrincipal()).isSameAs(first.getPrincipal());
+        assertThat(second.getCredentials()).isEqualTo(token);
+        assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+    }
+
+    @Test
+    void testTamperedTokenIsNotServedFromCache() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+
+        // A character in the middle of the signature, as the last one may only carry padding bits
+        int tampered = token.lastIndexOf('.') + 10;
+        char replacement = token.charAt(tampered) == 'A' ? 'B' : 'A';
+        String tamperedToken = token.substring(0, tampered) + replacement + token.substring(tampered + 1);
+
+        assertThat(tokenProvider.validateToken(tamperedToken)).isFalse();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -96,7 +137,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,12 +151,148 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
+    @Test
+    void testTokensSignedWithAKeyOfTheJwksAreVerified() throws IOException {
+        KeyPair rsaKey = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        KeyPair ecKey = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        TokenProvider tokenProvider = createTokenProviderWithJwks(Map.of("rsa", rsaKey.getPublic(), "ec", ecKey.getPublic()), true);
+
+        Authentication authentication = tokenProvider.getAuthentication(createSignedToken("rsa", rsaKey, SignatureAlgorithm.RS256));
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(tokenProvider.validateToken(createSignedToken("ec", ecKey, SignatureAlgorithm.ES256))).isTrue();
+        // Still accepted
+        assertThat(tokenProvider.validateToken(tokenProvider.createToken(createAuthentication(), false))).isTrue();
+    }
+
+    @Test
+    void testTokensSignedWithAnUnknownOrAMismatchedKeyAreRejected() throws IOException {
+        KeyPair rsaKey = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        KeyPair otherKey = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        TokenProvider tokenProvider = createTokenProviderWithJwks(Map.of("rsa", rsaKey.getPublic()), true);
+
+        assertThat(tokenProvider.validateToken(createSignedToken("unknown", rsaKey, SignatureAlgorithm.RS256))).isFalse();
+        assertThat(tokenProvider.validateToken(createSignedToken(null, rsaKey, SignatureAlgorithm.RS256))).isFalse();
+        assertThat(tokenProvider.validateToken(createSignedToken("rsa", otherKey, SignatureAlgorithm.RS256))).isFalse();
+        // No RS256 tokens without a JSON Web Key Set
+        assertThat(this.tokenProvider.validateToken(createSignedToken("rsa", rsaKey, SignatureAlgorithm.RS256))).isFalse();
+    }
+
+    @Test
+    void testTokensOfTheJwksWithoutAuthoritiesHaveNone() throws IOException {
+        KeyPair rsaKey = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        TokenProvider tokenProvider = createTokenProviderWithJwks(Map.of("rsa", rsaKey.getPublic()), true);
+        String token = Jwts
+            .builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "rsa")
+            .setSubject("service-account")
+            .signWith(rsaKey.getPrivate(), SignatureAlgorithm.RS256)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.resolveAuthentication(token))
+            .hasValueSatisfying(authentication -> {
+                assertThat(authentication.getName()).isEqualTo("service-account");
+                assertThat(authentication.getAuthorities()).isEmpty();
+            });
+        tokenProvider.shutdown();
+    }
+
+    @Test
+    void testSharedSecretTokensAreRejectedWhenNotAccepted() throws IOException {
+        KeyPair rsaKey = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        TokenProvider tokenProvider = createTokenProviderWithJwks(Map.of("rsa", rsaKey.getPublic()), false);
+
+        assertThat(tokenProvider.validateToken(tokenProvider.createToken(createAuthentication(), false))).isFalse();
+        assertThat(tokenProvider.validateToken(createSignedToken("rsa", rsaKey, SignatureAlgorithm.RS256))).isTrue();
+    }
+
+    @Test
+    void testRevokedTokenIsRejectedEvenOnceVerified() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(tokenProvider.validateToken(otherToken)).isTrue();
+
+        TokenRevocation revocation = tokenProvider.revoke(token);
+
+        assertThat(revocation.getKey()).isEqualTo(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getId());
+        assertThat(revocation.getExpiresAt()).isAfter(Instant.now());
+        assertThatThrownBy(() -> tokenProvider.getAuthentication(token)).isInstanceOf(RevokedJwtException.class);
+        assertThat(tokenProvider.validateToken(otherToken)).isTrue();
+    }
+
+    @Test
+    void testTokenRevokedByAnotherInstanceIsRejected() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = createTokenWithoutId();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(tokenProvider.validateToken(otherToken)).isTrue();
+
+        TokenProvider otherInstance = new TokenProvider(
+            createJHipsterProperties(),
+            new ApplicationProperties(),
+            new SecurityMetersService(new SimpleMeterRegistry())
+        );
+        tokenProvider.addRevocation(otherInstance.revoke(token));
+        tokenProvider.addRevocation(otherInstance.revoke(otherToken));
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.validateToken(otherToken)).isFalse();
+    }
+
+    @Test
+    void testExpiredRevocationsAreForgotten() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        tokenProvider.revoke(token);
+        tokenProvider.addRevocation(new TokenRevocation("expired", Instant.now().minusSeconds(1)));
+
+        assertThat(tokenProvider.removeExpiredRevocations()).isEqualTo(1);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    private JHipsterProperties createJHipsterProperties() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        return jHipsterProperties;
+    }
+
+    private String createTokenWithoutId() {
+        return Jwts
+            .builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+    }
+
+    private TokenProvider createTokenProviderWithJwks(Map<String, PublicKey> keys, boolean acceptSharedSecret) throws IOException {
+        Path jwks = Files.createTempFile(directory, "jwks", ".json");
+        JwkTestUtil.writeJwks(jwks, keys);
+        JHipsterProperties jHipsterProperties = createJHipsterProperties();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJwt().getJwks().setLocation(jwks.toUri().toString());
+        applicationProperties.getJwt().getJwks().setAcceptSharedSecret(acceptSharedSecret);
+        return new TokenProvider(jHipsterProperties, applicationProperties, new SecurityMetersService(new SimpleMeterRegistry()));
+    }
+
+    private String createSignedToken(String keyId, KeyPair keyPair, SignatureAlgorithm algorithm) {
+        return Jwts
+            .builder()
+            .setHeaderParam(JwsHeader.KEY_ID, keyId)
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(keyPair.getPrivate(), algorithm)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,118 @@
+package com.ensa.security.jwt;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.management.SecurityMetersService;
+import com.ensa.security.AuthoritiesConstants;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Compares the cost of verifying a token of each algorithm, through {@link TokenProvider} with its verified token cache
+ * disabled, so that every call verifies the signature.
+ * <p>
+ * Run its {@link #main} method with the test classpath, once the test classes are compiled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    @Param({ "HS512", "RS256", "ES256" })
+    public String algorithm;
+
+    private Path jwks;
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties
+            .getSecurity()
+            .getAuthentication()
+            .getJwt()
+            .setBase64Secret(Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded()));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJwt().setTokenCacheSize(0);
+        KeyPair keyPair = signatureAlgorithm.isHmac() ? null : Keys.keyPairFor(signatureAlgorithm);
+        if (keyPair != null) {
+            jwks = Files.createTempFile("jwks", ".json");
+            JwkTestUtil.writeJwks(jwks, Map.of("benchmark", keyPair.getPublic()));
+            applicationProperties.getJwt().getJwks().setLocation(jwks.toUri().toString());
+        }
+        tokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, new SecurityMetersService(new SimpleMeterRegistry()));
+
+        if (keyPair == null) {
+            Authentication authentication = new UsernamePasswordAuthenticationToken(
+                "benchmark",
+                "",
+                List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+            );
+            token = tokenProvider.createToken(authentication, false);
+        } else {
+            token =
+                Jwts
+                    .builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, "benchmark")
+                    .setSubject("benchmark")
+                    .claim("auth", AuthoritiesConstants.USER)
+                    .signWith(keyPair.getPrivate(), signatureAlgorithm)
+                    .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                    .compact();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (jwks != null) {
+            Files.delete(jwks);
+        }
+    }
+
+    @Benchmark
+    public Authentication verify() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
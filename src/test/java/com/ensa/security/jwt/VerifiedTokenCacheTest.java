@@ -0,0 +1,74 @@
+package com.ensa.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final Authentication authentication = new UsernamePasswordAuthenticationToken("user", "token", Collections.emptyList());
+
+    @Test
+    void testEntryIsServedUntilTokenExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", authentication, NOW + 1000, NOW);
+
+        assertThat(cache.get("token", NOW + 999)).isSameAs(authentication);
+        assertThat(cache.get("token", NOW + 1000)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testUnknownTokenIsNotServed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", authentication, NOW + 1000, NOW);
+
+        assertThat(cache.get("other-token", NOW)).isNull();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, authentication, NOW + 1000, NOW);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.get("token-99", NOW)).isSameAs(authentication);
+    }
+
+    @Test
+    void testExpiredEntriesAreEvictedFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("expired", authentication, NOW + 10, NOW);
+        cache.put("live", authentication, NOW + 1000, NOW);
+
+        cache.put("new", authentication, NOW + 1000, NOW + 500);
+
+        assertThat(cache.get("live", NOW + 500)).isSameAs(authentication);
+        assertThat(cache.get("new", NOW + 500)).isSameAs(authentication);
+    }
+
+    @Test
+    void testInvalidatedTokenIsNotServed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", authentication, NOW + 1000, NOW);
+
+        cache.invalidate("token");
+
+        assertThat(cache.get("token", NOW)).isNull();
+    }
+
+    @Test
+    void testDisabledCacheServesNothing() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0);
+        cache.put("token", authentication, NOW + 1000, NOW);
+
+        assertThat(cache.get("token", NOW)).isNull();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ensa.service;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost a request pays to have a walet id counted by the {@link HotKeySketch}, with the default size, on
+ * skewed keys recorded from several threads at once: the hot keys share the counters the threads contend on. It is to
+ * stay well below a microsecond.
+ * <p>
+ * Run its {@link #main} method with the test classpath, once the test classes are compiled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HotKeySketchBenchmark {
+
+    /**
+     * Keys drawn with a Zipf-like skew, a few of them taking most of the draws.
+     */
+    private static final int KEYS = 1 << 16;
+
+    @Param({ "1", "0.1" })
+    public double sampleRate;
+
+    private HotKeySketch sketch;
+
+    private long[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sketch = new HotKeySketch(sampleRate, 4096, 4, 100);
+        Random random = new Random(42);
+        keys = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = (long) Math.pow(1_000_000, random.nextDouble());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        private int next(int bound) {
+            next = (next + 1) & (bound - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        sketch.record(keys[cursor.next(KEYS)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HotKeySketchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
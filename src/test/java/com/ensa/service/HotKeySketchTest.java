@@ -0,0 +1,114 @@
+package com.ensa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class HotKeySketchTest {
+
+    private static final int HOT_KEYS = 10;
+
+    private static final int HOT_COUNT = 1000;
+
+    private static final int COLD_KEYS = 20_000;
+
+    /**
+     * Records the hot keys {@code 1} to {@link #HOT_KEYS} {@link #HOT_COUNT} times each, interleaved with cold keys
+     * recorded once each.
+     */
+    private static void recordSkewedTraffic(HotKeySketch sketch) {
+        long cold = 1_000_000L;
+        for (int i = 0; i < HOT_COUNT; i++) {
+            for (long key = 1; key <= HOT_KEYS; key++) {
+                sketch.record(key);
+            }
+            for (int j = 0; j < COLD_KEYS / HOT_COUNT; j++) {
+                sketch.record(cold++);
+            }
+        }
+    }
+
+    @Test
+    void testHotKeysAreFoundAmongColdOnes() {
+        HotKeySketch sketch = new HotKeySketch(1, 4096, 4, HOT_KEYS);
+
+        recordSkewedTraffic(sketch);
+
+        assertThat(sketch.top())
+            .extracting(HotKeySketch.HotKey::getKey)
+            .containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(sketch.isHot(1L)).isTrue();
+        assertThat(sketch.isHot(1_000_000L)).isFalse();
+        assertThat(sketch.top().get(0).getShare()).isCloseTo((double) HOT_COUNT / (HOT_KEYS * HOT_COUNT + COLD_KEYS), within(0.01));
+    }
+
+    @Test
+    void testCountsAreNeverUnderestimated() {
+        HotKeySketch sketch = new HotKeySketch(1, 1024, 4, HOT_KEYS);
+
+        recordSkewedTraffic(sketch);
+
+        for (long key = 1; key <= HOT_KEYS; key++) {
+            // At most e / width of all the keys counted above, with a high probability
+            assertThat(sketch.estimate(key)).isBetween((long) HOT_COUNT, HOT_COUNT + 3 * (HOT_KEYS * HOT_COUNT + COLD_KEYS) / 1024L);
+        }
+        assertThat(sketch.estimate(1_000_000L)).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void testSampledCountsAreScaledBack() {
+        HotKeySketch sketch = new HotKeySketch(0.25, 4096, 4, HOT_KEYS);
+
+        recordSkewedTraffic(sketch);
+
+        assertThat(sketch.top()).extracting(HotKeySketch.HotKey::getKey).contains(1L, 2L, 3L);
+        assertThat(sketch.top().get(0).getCount()).isCloseTo(HOT_COUNT, within(300L));
+    }
+
+    @Test
+    void testDecayLetsNewHotKeysTakeOver() {
+        HotKeySketch sketch = new HotKeySketch(1, 4096, 4, 1);
+        for (int i = 0; i < 100; i++) {
+            sketch.record(1L);
+        }
+        for (int i = 0; i < 10; i++) {
+            sketch.decay();
+        }
+        assertThat(sketch.estimate(1L)).isZero();
+        assertThat(sketch.top()).isEmpty();
+        assertThat(sketch.isHot(1L)).as("no longer hot once its count decayed to nothing").isFalse();
+
+        sketch.record(2L);
+        sketch.record(2L);
+
+        assertThat(sketch.top()).extracting(HotKeySketch.HotKey::getKey).containsExactly(2L);
+        assertThat(sketch.isHot(1L)).isFalse();
+    }
+
+    @Test
+    void testConcurrentRecordsAreAllCounted() throws Exception {
+        HotKeySketch sketch = new HotKeySketch(1, 4096, 4, HOT_KEYS);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> recordSkewedTraffic(sketch)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(sketch.getSampled()).isEqualTo(4L * (HOT_KEYS * HOT_COUNT + COLD_KEYS));
+        assertThat(sketch.estimate(1L)).isGreaterThanOrEqualTo(4L * HOT_COUNT);
+        assertThat(sketch.top()).hasSize(HOT_KEYS);
+    }
+}
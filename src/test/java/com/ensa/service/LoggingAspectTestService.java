@@ -0,0 +1,22 @@
+package com.ensa.service;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * A service advised by the {@code LoggingAspect}, for its tests.
+ */
+@Service
+public class LoggingAspectTestService {
+
+    public long square(long value) {
+        return value * value;
+    }
+
+    public int count() {
+        return 0;
+    }
+
+    public void fail() {
+        throw new IllegalStateException("failing service");
+    }
+}
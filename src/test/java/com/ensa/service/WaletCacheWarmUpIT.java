@@ -0,0 +1,150 @@
+package com.ensa.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ensa.IntegrationTest;
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.domain.Walet;
+import com.ensa.repository.LedgerEntryRepository;
+import com.ensa.repository.WaletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Integration tests for the {@link WaletCacheWarmUp}, with walets and ledger entries committed, as the warm-up loads
+ * them in transactions of its own, and with the second-level cache the other tests run without.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+class WaletCacheWarmUpIT {
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    private Walet busy;
+
+    private Walet quiet;
+
+    private Walet other;
+
+    private Walet idle;
+
+    @BeforeEach
+    public void initTest() {
+        busy = waletRepository.save(new Walet().login("warm-up-busy"));
+        quiet = waletRepository.save(new Walet().login("warm-up-quiet"));
+        other = waletRepository.save(new Walet().login("warm-up-other"));
+        idle = waletRepository.save(new Walet().login("warm-up-idle"));
+        // Few enough entries for no balance snapshot to be taken
+        ledgerService.post(journal(busy, quiet));
+        ledgerService.post(journal(busy, other));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        List<Long> ids = List.of(busy.getId(), quiet.getId(), other.getId(), idle.getId());
+        ledgerEntryRepository.deleteAll(
+            ledgerEntryRepository.findAll().stream().filter(entry -> ids.contains(entry.getWaletId())).collect(Collectors.toList())
+        );
+        waletRepository.deleteAllById(ids);
+    }
+
+    private static List<LedgerEntry> journal(Walet from, Walet to) {
+        return List.of(new LedgerEntry().waletId(from.getId()).amount(-100L), new LedgerEntry().waletId(to.getId()).amount(100L));
+    }
+
+    @Test
+    void testMostActiveWaletsComeFirst() {
+        List<Long> ids = ledgerEntryRepository.findMostActiveWaletIds(Instant.now().minus(Duration.ofHours(1)), PageRequest.of(0, 10000));
+
+        assertThat(ids).contains(busy.getId(), quiet.getId()).doesNotContain(idle.getId());
+        assertThat(ids.indexOf(busy.getId())).isLessThan(ids.indexOf(quiet.getId()));
+    }
+
+    @Test
+    void testWarmUpLoadsTheActiveWaletsInChunks() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Cache.WarmUp warmUp = applicationProperties.getCache().getWarmUp();
+        warmUp.setChunkSize(1);
+        warmUp.setActivityWindow(Duration.ofHours(1));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Instant since = Instant.now().minus(Duration.ofHours(1));
+        int active = ledgerEntryRepository.findMostActiveWaletIds(since, PageRequest.of(0, 10000)).size();
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Walet.class);
+        assertThat(cache.contains(Walet.class, busy.getId())).isFalse();
+
+        long loaded = new WaletCacheWarmUp(
+            waletRepository,
+            ledgerEntryRepository,
+            transactionManager,
+            taskExecutor,
+            applicationProperties,
+            meterRegistry
+        )
+            .warmUp();
+
+        assertThat(loaded).isEqualTo(active).isGreaterThanOrEqualTo(3);
+        assertThat(cache.contains(Walet.class, busy.getId())).isTrue();
+        assertThat(cache.contains(Walet.class, quiet.getId())).isTrue();
+        assertThat(cache.contains(Walet.class, other.getId())).isTrue();
+        assertThat(cache.contains(Walet.class, idle.getId())).isFalse();
+        assertThat(meterRegistry.get(WaletCacheWarmUp.TIMER_NAME).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(WaletCacheWarmUp.TIMER_NAME + ".loaded").counter().count()).isEqualTo(loaded);
+    }
+
+    @Test
+    void testWarmUpIsLimitedToTheMostActiveWalets() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getWarmUp().setMaxWalets(1);
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Walet.class);
+
+        long loaded = new WaletCacheWarmUp(
+            waletRepository,
+            ledgerEntryRepository,
+            transactionManager,
+            taskExecutor,
+            applicationProperties,
+            new SimpleMeterRegistry()
+        )
+            .warmUp();
+
+        assertThat(loaded).isEqualTo(1);
+        // Busier than them, if not the busiest
+        assertThat(cache.contains(Walet.class, quiet.getId())).isFalse();
+        assertThat(cache.contains(Walet.class, other.getId())).isFalse();
+    }
+}
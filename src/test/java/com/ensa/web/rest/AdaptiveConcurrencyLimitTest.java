@@ -0,0 +1,77 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+
+    private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 5, 50, 0.2);
+
+    @Test
+    void testWritesAreShedBeforeReads() {
+        for (int i = 0; i < 8; i++) {
+            assertThat(concurrencyLimit.tryAcquire(false)).isTrue();
+        }
+        assertThat(concurrencyLimit.tryAcquire(false)).isFalse();
+        assertThat(concurrencyLimit.tryAcquire(true)).isTrue();
+        assertThat(concurrencyLimit.tryAcquire(true)).isTrue();
+        assertThat(concurrencyLimit.tryAcquire(true)).isFalse();
+        assertThat(concurrencyLimit.getInFlight()).isEqualTo(10);
+
+        concurrencyLimit.release(FAST);
+
+        assertThat(concurrencyLimit.tryAcquire(false)).isFalse();
+        assertThat(concurrencyLimit.tryAcquire(true)).isTrue();
+    }
+
+    @Test
+    void testLimitGrowsUnderLoadWhileLatencyIsSteady() {
+        load(FAST, 200);
+
+        assertThat(concurrencyLimit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        load(FAST, 50);
+        int limit = concurrencyLimit.getLimit();
+        assertThat(limit).isGreaterThan(10);
+
+        load(SLOW, 1);
+        assertThat(concurrencyLimit.getLimit()).isLessThan(limit);
+
+        load(SLOW, 60);
+        assertThat(concurrencyLimit.getLimit()).isLessThan(limit / 2).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhenMostOfItIsUnused() {
+        for (int i = 0; i < 200; i++) {
+            assertThat(concurrencyLimit.tryAcquire(true)).isTrue();
+            concurrencyLimit.release(FAST);
+        }
+
+        assertThat(concurrencyLimit.getLimit()).isEqualTo(10);
+    }
+
+    /**
+     * Runs rounds of as many requests at once as the limit allows.
+     */
+    private void load(long latency, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (concurrencyLimit.tryAcquire(true)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                concurrencyLimit.release(latency);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.Walet;
+import com.ensa.repository.IdempotencyRecordRepository;
+import com.ensa.repository.WaletRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link IdempotencyFilter}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class IdempotencyFilterIT {
+
+    private static final String ENTITY_API_URL = "/api/walets";
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restWaletMockMvc;
+
+    private MockHttpServletResponse createWalet(Walet walet, String idempotencyKey) throws Exception {
+        return restWaletMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(walet))
+            )
+            .andReturn()
+            .getResponse();
+    }
+
+    @Test
+    @Transactional
+    void retriedCreateIsReplayed() throws Exception {
+        int databaseSizeBeforeCreate = waletRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+        Walet walet = WaletResourceIT.createEntity(em);
+
+        MockHttpServletResponse first = createWalet(walet, idempotencyKey);
+        MockHttpServletResponse retry = createWalet(walet, idempotencyKey);
+
+        assertThat(first.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getHeader("Location")).isEqualTo(first.getHeader("Location"));
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getContentType()).isEqualTo(first.getContentType());
+        assertThat(waletRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    @Transactional
+    void createWithoutKeyIsNotRecorded() throws Exception {
+        long recordsBeforeCreate = idempotencyRecordRepository.count();
+
+        restWaletMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(WaletResourceIT.createEntity(em)))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+
+        assertThat(idempotencyRecordRepository.count()).isEqualTo(recordsBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void keyReusedForDifferentRequestIsRejected() throws Exception {
+        int databaseSizeBeforeCreate = waletRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        assertThat(createWalet(WaletResourceIT.createEntity(em), idempotencyKey).getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(createWalet(WaletResourceIT.createUpdatedEntity(em), idempotencyKey).getStatus())
+            .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+
+        assertThat(waletRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    @Transactional
+    void clientErrorIsReplayed() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        Walet walet = WaletResourceIT.createEntity(em).id(1L);
+
+        assertThat(createWalet(walet, idempotencyKey).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        MockHttpServletResponse retry = createWalet(walet, idempotencyKey);
+
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @Transactional
+    void blankKeyIsRejected() throws Exception {
+        restWaletMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, " ")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(WaletResourceIT.createEntity(em)))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Not transactional: the duplicates run on their own threads and must see the claim of the first request committed.
+     */
+    @Test
+    void concurrentDuplicatesExecuteOnce() throws Exception {
+        int databaseSizeBeforeCreate = waletRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+        Walet walet = WaletResourceIT.createEntity(em).login("idempotent-" + idempotencyKey.substring(0, 8));
+        int duplicates = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < duplicates; i++) {
+                Callable<MockHttpServletResponse> call = () -> {
+                    start.await();
+                    return createWalet(walet, idempotencyKey);
+                };
+                responses.add(executor.submit(call));
+            }
+            start.countDown();
+
+            List<String> bodies = new ArrayList<>();
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertThat(response.get().getStatus()).isEqualTo(HttpStatus.CREATED.value());
+                bodies.add(response.get().getContentAsString());
+            }
+            assertThat(bodies).containsOnly(bodies.get(0));
+            assertThat(waletRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+        } finally {
+            executor.shutdownNow();
+            waletRepository.findOneByLogin(walet.getLogin()).ifPresent(waletRepository::delete);
+            idempotencyRecordRepository.deleteAll();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Unit tests for the {@link IdempotencyFilter}, see {@link IdempotencyFilterIT} for its behaviour behind the API.
+ */
+class IdempotencyFilterTest {
+
+    @Test
+    void testRequestLineHasTheQueryOnlyWhenThereIsOne() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/walets");
+
+        assertThat(IdempotencyFilter.requestLine(request)).isEqualTo("POST /api/walets");
+
+        request.setQueryString("dryRun=true");
+
+        assertThat(IdempotencyFilter.requestLine(request)).isEqualTo("POST /api/walets?dryRun=true");
+    }
+
+    @Test
+    void testBufferedBodyCanBeReadAsynchronously() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/walets");
+        request.setContent("{\"login\":\"async\"}".getBytes(StandardCharsets.UTF_8));
+        ServletInputStream in = new IdempotencyFilter.BufferedBodyRequest(request).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        in.setReadListener(
+            new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[4];
+                    while (in.isReady() && !in.isFinished()) {
+                        read.write(buffer, 0, in.read(buffer));
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            }
+        );
+
+        assertThat(allDataRead).isTrue();
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo("{\"login\":\"async\"}");
+    }
+}
@@ -0,0 +1,198 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.domain.Walet;
+import com.ensa.repository.BalanceSnapshotRepository;
+import com.ensa.repository.LedgerEntryRepository;
+import com.ensa.repository.WaletRepository;
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.service.HotWaletTracker;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link LedgerEntryResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class LedgerEntryResourceIT {
+
+    private static final Long AMOUNT = 1250L;
+
+    private static final String ENTITY_API_URL = "/api/ledger-entries";
+    private static final String WALET_ENTRIES_API_URL = "/api/walets/{id}/ledger-entries";
+    private static final String WALET_BALANCE_API_URL = "/api/walets/{id}/balance";
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private HotWaletTracker hotWaletTracker;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restLedgerEntryMockMvc;
+
+    private Walet source;
+
+    private Walet target;
+
+    @BeforeEach
+    public void initTest() {
+        source = waletRepository.saveAndFlush(WaletResourceIT.createEntity(em));
+        target = waletRepository.saveAndFlush(WaletResourceIT.createUpdatedEntity(em));
+    }
+
+    private static List<LedgerEntry> journal(Walet from, Walet to, long amount) {
+        return List.of(
+            new LedgerEntry().waletId(from.getId()).amount(-amount),
+            new LedgerEntry().waletId(to.getId()).amount(amount).description("transfer")
+        );
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void postJournal() throws Exception {
+        int databaseSizeBeforeCreate = ledgerEntryRepository.findAll().size();
+
+        restLedgerEntryMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(journal(source, target, AMOUNT)))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].sequence").value(1))
+            .andExpect(jsonPath("$.[1].sequence").value(1));
+
+        List<LedgerEntry> ledgerEntryList = ledgerEntryRepository.findAll();
+        assertThat(ledgerEntryList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(ledgerEntryList.get(ledgerEntryList.size() - 1).getJournalId())
+            .isEqualTo(ledgerEntryList.get(ledgerEntryList.size() - 2).getJournalId());
+
+        restLedgerEntryMockMvc
+            .perform(get(WALET_BALANCE_API_URL, target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(AMOUNT.intValue()))
+            .andExpect(jsonPath("$.lastSequence").value(1));
+        restLedgerEntryMockMvc
+            .perform(get(WALET_BALANCE_API_URL, source.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(-AMOUNT.intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void postUnbalancedJournal() throws Exception {
+        int databaseSizeBeforeCreate = ledgerEntryRepository.findAll().size();
+        List<LedgerEntry> legs = List.of(
+            new LedgerEntry().waletId(source.getId()).amount(-AMOUNT),
+            new LedgerEntry().waletId(target.getId()).amount(AMOUNT + 1)
+        );
+
+        restLedgerEntryMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(legs)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.ledger"));
+
+        assertThat(ledgerEntryRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void postJournalToUnknownWalet() throws Exception {
+        int databaseSizeBeforeCreate = ledgerEntryRepository.findAll().size();
+
+        restLedgerEntryMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(journal(source, new Walet().id(Long.MAX_VALUE), AMOUNT)))
+            )
+            .andExpect(status().isBadRequest());
+
+        assertThat(ledgerEntryRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+        assertThat(hotWaletTracker.isHot(Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void getBalanceResumesFromSnapshot() throws Exception {
+        // The test configuration writes a snapshot every 3 entries
+        for (int i = 0; i < 7; i++) {
+            restLedgerEntryMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(journal(source, target, AMOUNT)))
+                )
+                .andExpect(status().isCreated());
+        }
+
+        assertThat(balanceSnapshotRepository.findFirstByWaletIdOrderByLastSequenceDesc(target.getId()))
+            .hasValueSatisfying(snapshot -> {
+                assertThat(snapshot.getLastSequence()).isEqualTo(6L);
+                assertThat(snapshot.getBalance()).isEqualTo(6 * AMOUNT);
+            });
+        restLedgerEntryMockMvc
+            .perform(get(WALET_BALANCE_API_URL, target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(7 * AMOUNT.intValue()))
+            .andExpect(jsonPath("$.lastSequence").value(7));
+        restLedgerEntryMockMvc
+            .perform(get(WALET_ENTRIES_API_URL + "?size=2", target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "7"))
+            .andExpect(jsonPath("$.[0].sequence").value(7))
+            .andExpect(jsonPath("$.[1].sequence").value(6));
+    }
+
+    @Test
+    @Transactional
+    void postJournalAsUserIsForbidden() throws Exception {
+        int databaseSizeBeforeCreate = ledgerEntryRepository.findAll().size();
+
+        restLedgerEntryMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(journal(source, target, AMOUNT)))
+            )
+            .andExpect(status().isForbidden());
+
+        assertThat(ledgerEntryRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void getBalanceOfNonExistingWalet() throws Exception {
+        restLedgerEntryMockMvc.perform(get(WALET_BALANCE_API_URL, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+}
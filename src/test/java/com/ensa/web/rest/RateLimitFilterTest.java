@@ -0,0 +1,123 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ensa.config.ApplicationProperties;
+import com.ensa.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties.RateLimit properties = new ApplicationProperties.RateLimit();
+        ApplicationProperties.RateLimit.Route transfers = new ApplicationProperties.RateLimit.Route();
+        transfers.setMethods(Set.of(HttpMethod.POST));
+        transfers.setCapacity(2);
+        transfers.setRefillTokens(1);
+        transfers.setRefillPeriod(Duration.ofSeconds(10));
+        properties.getRoutes().put("/api/transfers", transfers);
+        ApplicationProperties.RateLimit.Route api = new ApplicationProperties.RateLimit.Route();
+        api.setCapacity(3);
+        properties.getRoutes().put("/api/**", api);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = new RateLimitFilter(properties, meterRegistry, nanoTime::get);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreRefused() throws Exception {
+        assertThat(perform("POST", "/api/transfers", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(perform("POST", "/api/transfers", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse refused = perform("POST", "/api/transfers", "10.0.0.1");
+
+        assertThat(refused.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(refused.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(count("/api/transfers", "allowed")).isEqualTo(2);
+        assertThat(count("/api/transfers", "throttled")).isEqualTo(1);
+
+        nanoTime.addAndGet(Duration.ofMillis(9500).toNanos());
+        assertThat(perform("POST", "/api/transfers", "10.0.0.1").getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        nanoTime.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThat(perform("POST", "/api/transfers", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void testRequestIsLimitedByTheFirstRouteItMatches() throws Exception {
+        perform("POST", "/api/transfers", "10.0.0.1");
+        perform("POST", "/api/transfers", "10.0.0.1");
+        assertThat(perform("POST", "/api/transfers", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        // Other methods fall through to the next route, which has its own buckets
+        assertThat(perform("GET", "/api/transfers", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(count("/api/**", "allowed")).isEqualTo(1);
+
+        // Requests matching no route are not limited
+        for (int i = 0; i < 5; i++) {
+            assertThat(perform("GET", "/management/health", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    @Test
+    void testClientsAreToldApartByLoginThenAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            perform("GET", "/api/walets", "10.0.0.1");
+        }
+        assertThat(perform("GET", "/api/walets", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(perform("GET", "/api/walets", "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // An authenticated user has the same bucket whatever their address
+        SecurityContextHolder
+            .getContext()
+            .setAuthentication(
+                new UsernamePasswordAuthenticationToken("user", "", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+            );
+        assertThat(perform("GET", "/api/walets", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(perform("GET", "/api/walets", "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(perform("GET", "/api/walets", "10.0.0.3").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(perform("GET", "/api/walets", "10.0.0.4").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(meterRegistry.get("http.rate-limit.clients").tag("route", "/api/**").gauge().value()).isEqualTo(3);
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String remoteAddress) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        rateLimitFilter.doFilter(request, response, filterChain);
+        assertThat(filterChain.getRequest() != null).isEqualTo(response.getStatus() == HttpStatus.OK.value());
+        return response;
+    }
+
+    private double count(String route, String result) {
+        return meterRegistry.get("http.rate-limit.requests").tag("route", route).tag("result", result).counter().count();
+    }
+}
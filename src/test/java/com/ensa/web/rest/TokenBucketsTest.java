@@ -0,0 +1,101 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    // Starts close to overflowing, as System.nanoTime may
+    private final AtomicLong nanoTime = new AtomicLong(Long.MAX_VALUE - Duration.ofSeconds(5).toNanos());
+
+    private final TokenBuckets tokenBuckets = new TokenBuckets(3, 1, Duration.ofSeconds(1), IDLE_TIMEOUT, nanoTime::get);
+
+    @Test
+    void testBurstUpToCapacityThenRefillRate() {
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isEqualTo(Duration.ofSeconds(1).toNanos());
+
+        advance(Duration.ofMillis(400));
+        assertThat(tokenBuckets.tryAcquire("client")).isEqualTo(Duration.ofMillis(600).toNanos());
+
+        advance(Duration.ofMillis(600));
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isPositive();
+
+        // Never more than the capacity, however long the pause
+        advance(Duration.ofMinutes(1));
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isZero();
+        assertThat(tokenBuckets.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void testClientsHaveTheirOwnBucket() {
+        for (int i = 0; i < 3; i++) {
+            tokenBuckets.tryAcquire("client");
+        }
+
+        assertThat(tokenBuckets.tryAcquire("client")).isPositive();
+        assertThat(tokenBuckets.tryAcquire("other")).isZero();
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        tokenBuckets.tryAcquire("idle");
+        advance(Duration.ofMinutes(5));
+        tokenBuckets.tryAcquire("active");
+        assertThat(tokenBuckets.size()).isEqualTo(2);
+
+        // Full again one second after its last request
+        advance(Duration.ofMinutes(5).plusSeconds(1));
+        tokenBuckets.tryAcquire("active");
+
+        assertThat(tokenBuckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentRequestsNeverTakeMoreThanTheCapacity() throws Exception {
+        TokenBuckets slowBuckets = new TokenBuckets(100, 1, Duration.ofHours(1), IDLE_TIMEOUT);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(() -> {
+                    int acquired = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        if (slowBuckets.tryAcquire("client") == 0) {
+                            acquired++;
+                        }
+                    }
+                    return acquired;
+                });
+            }
+            int acquired = 0;
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                acquired += future.get();
+            }
+
+            assertThat(acquired).isEqualTo(100);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void advance(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+}
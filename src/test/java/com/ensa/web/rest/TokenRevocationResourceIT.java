@@ -0,0 +1,151 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ensa.IntegrationTest;
+import com.ensa.config.ApplicationProperties;
+import com.ensa.domain.RevokedToken;
+import com.ensa.management.SecurityMetersService;
+import com.ensa.repository.RevokedTokenRepository;
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.security.jwt.TokenProvider;
+import com.ensa.security.jwt.TokenRevocation;
+import com.ensa.service.TokenRevocationService;
+import com.ensa.web.rest.vm.TokenRevocationVM;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for the {@link TokenRevocationResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+class TokenRevocationResourceIT {
+
+    private static final String ADMIN_API_URL = "/api/admin/token-revocations";
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private MockMvc restTokenRevocationMockMvc;
+
+    private String createToken() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+            "user",
+            "",
+            List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    private static TokenRevocationVM revocationOf(String token) {
+        TokenRevocationVM tokenRevocation = new TokenRevocationVM();
+        tokenRevocation.setToken(token);
+        return tokenRevocation;
+    }
+
+    @Test
+    @Transactional
+    void logoutRevokesTheTokenOfTheRequest() throws Exception {
+        String token = createToken();
+
+        restTokenRevocationMockMvc
+            .perform(post("/api/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isNoContent());
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        restTokenRevocationMockMvc
+            .perform(post("/api/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void adminRevokesAToken() throws Exception {
+        String token = createToken();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        long revokedTokensBefore = revokedTokenRepository.count();
+
+        restTokenRevocationMockMvc
+            .perform(
+                post(ADMIN_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(revocationOf(token)))
+            )
+            .andExpect(status().isNoContent());
+
+        assertThat(revokedTokenRepository.count()).isEqualTo(revokedTokensBefore + 1);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void invalidTokenIsNotRevoked() throws Exception {
+        restTokenRevocationMockMvc
+            .perform(
+                post(ADMIN_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(revocationOf("not-a-token")))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    void onlyAdminsRevokeTokensOfOthers() throws Exception {
+        restTokenRevocationMockMvc
+            .perform(
+                post(ADMIN_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(revocationOf(createToken())))
+            )
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    void tokensRevokedByAnotherInstanceAreLoaded() {
+        String token = createToken();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+
+        TokenProvider otherInstance = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            new SecurityMetersService(new SimpleMeterRegistry())
+        );
+        TokenRevocation revocation = otherInstance.revoke(token);
+        revokedTokenRepository.saveAndFlush(
+            new RevokedToken().id(revocation.getKey()).revokedAt(Instant.now()).expiresAt(revocation.getExpiresAt())
+        );
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+
+        assertThat(tokenRevocationService.synchronize()).isPositive();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+}
@@ -0,0 +1,321 @@
+package com.ensa.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.ensa.IntegrationTest;
+import com.ensa.domain.LedgerEntry;
+import com.ensa.domain.Walet;
+import com.ensa.repository.WaletRepository;
+import com.ensa.security.AuthoritiesConstants;
+import com.ensa.service.InsufficientFundsException;
+import com.ensa.service.LedgerService;
+import com.ensa.service.TransferService;
+import com.ensa.service.dto.TransferDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link TransferResource} REST controller, and a concurrency harness for {@link TransferService}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(TransferResourceIT.OWNER_LOGIN)
+class TransferResourceIT {
+
+    private final Logger log = LoggerFactory.getLogger(TransferResourceIT.class);
+
+    private static final Long AMOUNT = 1250L;
+
+    static final String OWNER_LOGIN = "transfer-owner";
+
+    private static final String ENTITY_API_URL = "/api/transfers";
+    private static final String WALET_BALANCE_API_URL = "/api/walets/{id}/balance";
+
+    private static final int HARNESS_WALETS = 20;
+    private static final int HARNESS_THREADS = 8;
+    private static final int HARNESS_TRANSFERS_PER_THREAD = 250;
+    private static final long HARNESS_OPENING_BALANCE = 10_000L;
+
+    @Autowired
+    private WaletRepository waletRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restTransferMockMvc;
+
+    private Walet source;
+
+    private Walet target;
+
+    @BeforeEach
+    public void initTest() {
+        source = WaletResourceIT.createEntity(em).login(OWNER_LOGIN);
+        target = WaletResourceIT.createUpdatedEntity(em);
+    }
+
+    private static TransferDTO transfer(Walet from, Walet to, long amount) {
+        TransferDTO transfer = new TransferDTO();
+        transfer.setFromWaletId(from.getId());
+        transfer.setToWaletId(to.getId());
+        transfer.setAmount(amount);
+        return transfer;
+    }
+
+    private Walet fund(Walet walet, long amount) {
+        Walet bank = waletRepository.saveAndFlush(WaletResourceIT.createEntity(em).login("bank-" + walet.getLogin()));
+        ledgerService.post(
+            List.of(new LedgerEntry().waletId(bank.getId()).amount(-amount), new LedgerEntry().waletId(walet.getId()).amount(amount))
+        );
+        return bank;
+    }
+
+    @Test
+    @Transactional
+    void createTransfer() throws Exception {
+        waletRepository.saveAndFlush(source);
+        waletRepository.saveAndFlush(target);
+        fund(source, 2 * AMOUNT);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(source, target, AMOUNT)))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.journalId").isNotEmpty());
+
+        restTransferMockMvc
+            .perform(get(WALET_BALANCE_API_URL, source.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(AMOUNT.intValue()));
+        restTransferMockMvc
+            .perform(get(WALET_BALANCE_API_URL, target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(AMOUNT.intValue()));
+    }
+
+    @Test
+    @Transactional
+    void createTransferWithInsufficientFunds() throws Exception {
+        waletRepository.saveAndFlush(source);
+        waletRepository.saveAndFlush(target);
+        fund(source, AMOUNT - 1);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(source, target, AMOUNT)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.ledger"));
+
+        restTransferMockMvc
+            .perform(get(WALET_BALANCE_API_URL, target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(0));
+    }
+
+    @Test
+    @Transactional
+    void createTransferToSameWalet() throws Exception {
+        waletRepository.saveAndFlush(source);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(source, source, AMOUNT)))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void createTransferWithNonPositiveAmount() throws Exception {
+        waletRepository.saveAndFlush(source);
+        waletRepository.saveAndFlush(target);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(source, target, 0)))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void createTransferFromWaletOfAnotherUser() throws Exception {
+        waletRepository.saveAndFlush(source);
+        waletRepository.saveAndFlush(target);
+        fund(target, AMOUNT);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(target, source, AMOUNT)))
+            )
+            .andExpect(status().isForbidden());
+
+        restTransferMockMvc
+            .perform(get(WALET_BALANCE_API_URL, target.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(AMOUNT.intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void createTransferFromWaletOfAnotherUserAsAdmin() throws Exception {
+        waletRepository.saveAndFlush(source);
+        waletRepository.saveAndFlush(target);
+        fund(target, AMOUNT);
+
+        restTransferMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(transfer(target, source, AMOUNT)))
+            )
+            .andExpect(status().isCreated());
+    }
+
+    /**
+     * Concurrency harness: random transfers from several threads, half of them touching a single hot walet.
+     * Funds must be conserved, no walet may go below zero, and throughput and latency percentiles are logged.
+     * Not transactional, so that every transfer really commits; the data is removed at the end. Run as an administrator,
+     * who may transfer from any walet.
+     */
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void concurrentTransfersConserveFunds() throws Exception {
+        List<Long> waletIds = new ArrayList<>();
+        List<Long> bankIds = new ArrayList<>();
+        try {
+            for (int i = 0; i < HARNESS_WALETS; i++) {
+                Walet walet = waletRepository.saveAndFlush(WaletResourceIT.createEntity(em).login("harness-" + i));
+                waletIds.add(walet.getId());
+                bankIds.add(fund(walet, HARNESS_OPENING_BALANCE).getId());
+            }
+            Long hotWaletId = waletIds.get(0);
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger rejected = new AtomicInteger();
+
+            ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(HARNESS_THREADS));
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < HARNESS_THREADS; t++) {
+                futures.add(
+                    executor.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < HARNESS_TRANSFERS_PER_THREAD; i++) {
+                            Long from = random.nextBoolean() ? hotWaletId : waletIds.get(random.nextInt(HARNESS_WALETS));
+                            Long to = waletIds.get(random.nextInt(HARNESS_WALETS));
+                            if (from.equals(to)) {
+                                continue;
+                            }
+                            if (random.nextBoolean()) {
+                                Long swap = from;
+                                from = to;
+                                to = swap;
+                            }
+                            TransferDTO transfer = new TransferDTO();
+                            transfer.setFromWaletId(from);
+                            transfer.setToWaletId(to);
+                            transfer.setAmount(1L + random.nextInt(500));
+                            long transferStart = System.nanoTime();
+                            try {
+                                transferService.transfer(transfer);
+                            } catch (InsufficientFundsException e) {
+                                rejected.incrementAndGet();
+                            }
+                            latencies.add(System.nanoTime() - transferStart);
+                        }
+                    })
+                );
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            log.info(
+                "{} transfers ({} rejected for insufficient funds) in {} ms: {} transfers/s, p50 {} us, p99 {} us",
+                sorted.size(),
+                rejected.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                sorted.size() * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                TimeUnit.NANOSECONDS.toMicros(sorted.get(sorted.size() / 2)),
+                TimeUnit.NANOSECONDS.toMicros(sorted.get(sorted.size() * 99 / 100))
+            );
+
+            long total = 0;
+            for (Long waletId : waletIds) {
+                long balance = ledgerService.getBalance(waletId).orElseThrow().getBalance();
+                Long entriesSum = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(amount), 0) from ledger_entry where walet_id = ?",
+                    Long.class,
+                    waletId
+                );
+                assertThat(balance).isNotNegative().isEqualTo(entriesSum);
+                total += balance;
+            }
+            assertThat(total).isEqualTo(HARNESS_WALETS * HARNESS_OPENING_BALANCE);
+        } finally {
+            List<Long> createdIds = new ArrayList<>(waletIds);
+            createdIds.addAll(bankIds);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Long waletId : createdIds) {
+                    jdbcTemplate.update("delete from balance_snapshot where walet_id = ?", waletId);
+                    jdbcTemplate.update("delete from ledger_entry where walet_id = ?", waletId);
+                }
+            });
+            waletRepository.deleteAllById(createdIds);
+        }
+    }
+}
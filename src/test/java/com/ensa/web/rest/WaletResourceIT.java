@@ -1,25 +1,37 @@
 package com.ensa.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.ensa.IntegrationTest;
 import com.ensa.domain.Walet;
 import com.ensa.repository.WaletRepository;
+import com.ensa.service.HotWaletTracker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Integration tests for the {@link WaletResource} REST controller.
@@ -53,6 +65,18 @@ class WaletResourceIT {
     @Autowired
     private MockMvc restWaletMockMvc;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HotWaletTracker hotWaletTracker;
+
     private Walet walet;
 
     /**
@@ -118,6 +142,47 @@ class WaletResourceIT {
         assertThat(waletList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void createWaletsInBatch() throws Exception {
+        int databaseSizeBeforeCreate = waletRepository.findAll().size();
+        List<Walet> walets = List.of(createEntity(em), createUpdatedEntity(em), createEntity(em).login("CCCCCCCCCC"));
+
+        // Create the Walets
+        restWaletMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(walets))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$.[*].id").isNotEmpty());
+
+        // Validate the Walets in the database
+        List<Walet> waletList = waletRepository.findAll();
+        assertThat(waletList).hasSize(databaseSizeBeforeCreate + 3);
+        assertThat(waletList).extracting(Walet::getLogin).contains(DEFAULT_LOGIN, UPDATED_LOGIN);
+    }
+
+    @Test
+    @Transactional
+    void createWaletsInBatchWithExistingId() throws Exception {
+        walet.setId(1L);
+        int databaseSizeBeforeCreate = waletRepository.findAll().size();
+
+        // A batch containing an entity with an existing ID cannot be created, so this API call must fail
+        restWaletMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(createEntity(em), walet)))
+            )
+            .andExpect(status().isBadRequest());
+
+        // Validate the Walet in the database
+        List<Walet> waletList = waletRepository.findAll();
+        assertThat(waletList).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     void getAllWalets() throws Exception {
@@ -135,6 +200,55 @@ class WaletResourceIT {
             .andExpect(jsonPath("$.[*].password").value(hasItem(DEFAULT_PASSWORD)));
     }
 
+    @Test
+    @Transactional
+    void getAllWaletsByKeysetPage() throws Exception {
+        // Initialize the database
+        waletRepository.saveAndFlush(walet);
+        Walet secondWalet = waletRepository.saveAndFlush(createUpdatedEntity(em));
+
+        // Get the page that ends with the first walet, then resume after it
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor={cursor}&size=1", walet.getId() - 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(walet.getId().intValue()))
+            .andExpect(header().string(WaletResource.NEXT_CURSOR_HEADER, walet.getId().toString()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("cursor=" + walet.getId())));
+
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor={cursor}&size=1", walet.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(secondWalet.getId().intValue()));
+
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor={cursor}&size=2", walet.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().doesNotExist(WaletResource.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @Transactional
+    void getAllWaletsWithInvalidPageSize() throws Exception {
+        restWaletMockMvc.perform(get(ENTITY_API_URL + "?size=0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void streamAllWalets() throws Exception {
+        // Initialize the database
+        waletRepository.saveAndFlush(walet);
+
+        // Stream all the walets
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "/stream"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(walet.getId().intValue())))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)));
+    }
+
     @Test
     @Transactional
     void getWalet() throws Exception {
@@ -152,11 +266,107 @@ class WaletResourceIT {
             .andExpect(jsonPath("$.password").value(DEFAULT_PASSWORD));
     }
 
+    @Test
+    @Transactional
+    void getWaletsByClient() throws Exception {
+        // Initialize the database
+        waletRepository.saveAndFlush(walet);
+        waletRepository.saveAndFlush(createUpdatedEntity(em));
+
+        // Get the walets of the default client
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "?idClient={idClient}", DEFAULT_ID_C_LIENT))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(walet.getId().intValue())))
+            .andExpect(jsonPath("$.[*].idCLient").value(everyItem(is(DEFAULT_ID_C_LIENT.intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getWaletByLogin() throws Exception {
+        // Initialize the database
+        waletRepository.saveAndFlush(walet);
+
+        // Get the walet
+        restWaletMockMvc
+            .perform(get(ENTITY_API_URL + "/by-login/{login}", DEFAULT_LOGIN))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(walet.getId().intValue()))
+            .andExpect(jsonPath("$.login").value(DEFAULT_LOGIN));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingWaletByLogin() throws Exception {
+        restWaletMockMvc.perform(get(ENTITY_API_URL + "/by-login/{login}", "unknown-login")).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void getNonExistingWalet() throws Exception {
         // Get the walet
         restWaletMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
+        // Only the ids of existing walets are counted
+        assertThat(hotWaletTracker.isHot(Long.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    @Transactional
+    void getMissingWaletFromTheMissingWaletsCache() throws Exception {
+        waletRepository.saveAndFlush(walet);
+        missingWalets().remove(Long.MAX_VALUE);
+
+        restWaletMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
+        assertThat(missingWalets().containsKey(Long.MAX_VALUE)).isTrue();
+
+        // Cached as missing, the walet is not looked up
+        missingWalets().put(walet.getId(), Boolean.TRUE);
+        try {
+            restWaletMockMvc.perform(get(ENTITY_API_URL_ID, walet.getId())).andExpect(status().isNotFound());
+        } finally {
+            missingWalets().remove(walet.getId());
+        }
+        restWaletMockMvc.perform(get(ENTITY_API_URL_ID, walet.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void createdWaletsAreNoLongerMissingOnceCommitted() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try {
+            new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    ids.add(createThroughApi(ENTITY_API_URL, createEntity(em).login("missing-walets-1")).get("id").asLong());
+                    createThroughApi(ENTITY_API_URL + "/batch", List.of(createEntity(em).login("missing-walets-2")))
+                        .forEach(created -> ids.add(created.get("id").asLong()));
+                    // Looked up by others before the walets are committed
+                    ids.forEach(id -> missingWalets().put(id, Boolean.TRUE));
+                });
+
+            assertThat(ids).hasSize(2).allSatisfy(id -> assertThat(missingWalets().containsKey(id)).isFalse());
+            for (Long id : ids) {
+                restWaletMockMvc.perform(get(ENTITY_API_URL_ID, id)).andExpect(status().isOk());
+            }
+        } finally {
+            waletRepository.deleteAllById(ids);
+        }
+    }
+
+    private JsonNode createThroughApi(String url, Object content) {
+        try {
+            String response = restWaletMockMvc
+                .perform(post(url).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(content)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            return objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Cache<Object, Object> missingWalets() {
+        return cacheManager.getCache(WaletResource.MISSING_WALETS_CACHE);
     }
 
     @Test
@@ -308,20 +518,49 @@ class WaletResourceIT {
         assertThat(testWalet.getPassword()).isEqualTo(UPDATED_PASSWORD);
     }
 
+    @Test
+    @Transactional
+    void partialUpdateWaletKeepsNullFields() throws Exception {
+        // Initialize the database
+        waletRepository.saveAndFlush(walet);
+
+        // Only send the login
+        Walet partialUpdatedWalet = new Walet();
+        partialUpdatedWalet.setId(walet.getId());
+        partialUpdatedWalet.login(UPDATED_LOGIN);
+
+        restWaletMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedWalet.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedWalet))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value(UPDATED_LOGIN))
+            .andExpect(jsonPath("$.password").value(DEFAULT_PASSWORD));
+
+        // Validate the Walet in the database
+        Walet testWalet = waletRepository.findById(walet.getId()).get();
+        assertThat(testWalet.getIdCLient()).isEqualTo(DEFAULT_ID_C_LIENT);
+        assertThat(testWalet.getLogin()).isEqualTo(UPDATED_LOGIN);
+        assertThat(testWalet.getPassword()).isEqualTo(DEFAULT_PASSWORD);
+    }
+
     @Test
     @Transactional
     void patchNonExistingWalet() throws Exception {
         int databaseSizeBeforeUpdate = waletRepository.findAll().size();
         walet.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // No row is updated, so the API call must answer 404
         restWaletMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, walet.getId())
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(walet))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
+        assertThat(hotWaletTracker.isHot(walet.getId())).isFalse();
 
         // Validate the Walet in the database
         List<Walet> waletList = waletRepository.findAll();
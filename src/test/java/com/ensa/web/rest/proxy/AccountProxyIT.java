@@ -0,0 +1,447 @@
+package com.ensa.web.rest.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ensa.IntegrationTest;
+import com.ensa.client.AccountLoader;
+import com.ensa.client.AccountServiceUnavailableException;
+import com.ensa.client.CachingAccountProxy;
+import com.ensa.service.dto.AccountDTO;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import javax.net.ServerSocketFactory;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Integration tests for the {@link AccountProxy} Feign client, against a local stand-in of the account service, which
+ * rejects the requests without the token of the current user.
+ */
+@IntegrationTest
+class AccountProxyIT {
+
+    private static final String ACCOUNT_JSON =
+        "{\"id\":%d,\"clientId\":7,\"number\":\"MA64011519000001205000534921\",\"balance\":1250.50,\"currency\":\"MAD\"}";
+
+    private static final int WARMUP_CALLS = 200;
+
+    private static final int MEASURED_CALLS = 1000;
+
+    private static final int WORKERS = 16;
+
+    private static final String TOKEN = "token-of-the-user";
+
+    private static final MockWebServer accountApi = new MockWebServer();
+
+    private final Logger log = LoggerFactory.getLogger(AccountProxyIT.class);
+
+    @Autowired
+    @Qualifier(AccountProxy.FEIGN_CLIENT)
+    private AccountProxy accountProxy;
+
+    @Autowired
+    private AccountProxy cachingAccountProxy;
+
+    @Autowired
+    private AccountLoader accountLoader;
+
+    @Autowired
+    private OkHttpClient okHttpClient;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void accountApiProperties(DynamicPropertyRegistry registry) {
+        // Without TCP_NODELAY, the stand-in's separate writes of headers and body stall on delayed ACKs for ~40ms
+        accountApi.setServerSocketFactory(new NoDelayServerSocketFactory());
+        registry.add("application.account-api.url", () -> accountApi.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdownAccountApi() throws IOException {
+        accountApi.shutdown();
+    }
+
+    @BeforeEach
+    public void initTest() throws InterruptedException {
+        SecurityContextHolder
+            .getContext()
+            .setAuthentication(new UsernamePasswordAuthenticationToken("user", TOKEN, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        accountApi.setDispatcher(new AuthenticatedDispatcher(new AccountDispatcher()));
+        // Forget the requests of the previous tests
+        while (accountApi.takeRequest(0, TimeUnit.MILLISECONDS) != null) {}
+    }
+
+    @AfterEach
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getAccount() throws Exception {
+        AccountDTO account = accountProxy.getAccount(42L);
+
+        assertThat(account.getId()).isEqualTo(42L);
+        assertThat(account.getClientId()).isEqualTo(7L);
+        assertThat(account.getBalance()).isEqualByComparingTo(new BigDecimal("1250.50"));
+        assertThat(account.getCurrency()).isEqualTo("MAD");
+        RecordedRequest request = accountApi.takeRequest();
+        assertThat(request.getPath()).isEqualTo("/api/accounts/42");
+        assertThat(request.getHeader("Accept-Encoding")).contains("gzip");
+    }
+
+    @Test
+    void getAccountsByClientFromGzipResponse() throws Exception {
+        List<AccountDTO> accounts = accountProxy.getAccountsByClient(7L);
+
+        assertThat(accounts).extracting(AccountDTO::getId).containsExactly(1L, 2L);
+        assertThat(accountApi.takeRequest().getPath()).isEqualTo("/api/accounts?clientId=7");
+    }
+
+    @Test
+    void connectionsAreKeptAlive() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            accountProxy.getAccount((long) i);
+        }
+
+        List<Integer> sequenceNumbers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sequenceNumbers.add(accountApi.takeRequest().getSequenceNumber());
+        }
+        // The sequence number is the index of the request on its connection: only a new connection starts at 0
+        assertThat(sequenceNumbers.stream().filter(sequenceNumber -> sequenceNumber == 0)).hasSizeLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void concurrentLookupsAreBatched() throws Exception {
+        List<CompletableFuture<AccountDTO>> accounts = new ArrayList<>();
+        for (long id = 101; id <= 110; id++) {
+            accounts.add(accountLoader.getAccount(id));
+        }
+        // Asked for again while pending, shares the first lookup
+        accounts.add(accountLoader.getAccount(101L));
+
+        assertThat(accounts.stream().map(CompletableFuture::join))
+            .extracting(AccountDTO::getId)
+            .containsExactly(101L, 102L, 103L, 104L, 105L, 106L, 107L, 108L, 109L, 110L, 101L);
+        assertThat(accountApi.takeRequest().getRequestUrl().queryParameterValues("id")).hasSize(10);
+        assertThat(accountApi.takeRequest(0, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void lookupsBeyondOneBatchAreSentWithTheTokenOfTheUser() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1001, 1250).boxed().collect(Collectors.toList());
+
+        // The full batches are sent on the task executor
+        Map<Long, AccountDTO> accounts = accountLoader.getAccounts(ids);
+
+        assertThat(accounts.values()).extracting(AccountDTO::getId).containsExactlyElementsOf(ids);
+        for (int i = 0; i < 3; i++) {
+            assertThat(accountApi.takeRequest().getHeader("Authorization")).isEqualTo("Bearer " + TOKEN);
+        }
+    }
+
+    @Test
+    void responsesAreCached() throws Exception {
+        assertThat(cachingAccountProxy).isInstanceOf(CachingAccountProxy.class);
+
+        assertThat(cachingAccountProxy.getAccount(201L).getId()).isEqualTo(201L);
+        assertThat(cachingAccountProxy.getAccount(201L).getId()).isEqualTo(201L);
+        assertThat(cachingAccountProxy.getAccounts(List.of(201L, 202L))).extracting(AccountDTO::getId).containsExactly(201L, 202L);
+
+        assertThat(accountApi.takeRequest().getPath()).isEqualTo("/api/accounts/201");
+        assertThat(accountApi.takeRequest().getPath()).isEqualTo("/api/accounts?id=202");
+        assertThat(accountApi.takeRequest(0, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void unknownAccountIsNull() throws Exception {
+        accountApi.setDispatcher(
+            new AuthenticatedDispatcher(
+                new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) {
+                        return new MockResponse().setResponseCode(404);
+                    }
+                }
+            )
+        );
+
+        assertThat(cachingAccountProxy.getAccount(404L)).isNull();
+        assertThat(accountApi.takeRequest().getPath()).isEqualTo("/api/accounts/404");
+    }
+
+    /**
+     * With the account service hanging, the callers, standing for the server's worker threads, are held for at most the
+     * time limit of the call, the calls beyond the capacity of the bulkhead are rejected at once, and once the circuit
+     * breaker opens no call waits anymore.
+     */
+    @Test
+    void slowAccountServiceDoesNotHoldTheCallers() throws Exception {
+        CountDownLatch hanging = new CountDownLatch(1);
+        AtomicInteger inDispatch = new AtomicInteger();
+        accountApi.setDispatcher(
+            new AuthenticatedDispatcher(
+                new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        inDispatch.incrementAndGet();
+                        try {
+                            hanging.await(10, TimeUnit.SECONDS);
+                            return new MockResponse().setResponseCode(503);
+                        } finally {
+                            inDispatch.decrementAndGet();
+                        }
+                    }
+                }
+            )
+        );
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("accountapi_getAccount");
+        ThreadPoolBulkhead bulkhead = threadPoolBulkheadRegistry.bulkhead("accountapi_getAccount");
+        // As the server's worker threads, each serving a request of the user
+        ExecutorService workers = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(WORKERS));
+        try {
+            List<Future<Long>> callTimes = new ArrayList<>();
+            for (int i = 0; i < WORKERS; i++) {
+                long id = 300 + i;
+                callTimes.add(
+                    workers.submit(() -> {
+                        long start = System.nanoTime();
+                        assertThatThrownBy(() -> cachingAccountProxy.getAccount(id))
+                            .isInstanceOf(AccountServiceUnavailableException.class);
+                        return System.nanoTime() - start;
+                    })
+                );
+            }
+            List<Long> elapsed = new ArrayList<>();
+            for (Future<Long> callTime : callTimes) {
+                elapsed.add(callTime.get(5, TimeUnit.SECONDS));
+            }
+            Collections.sort(elapsed);
+
+            int capacity = bulkhead.getBulkheadConfig().getMaxThreadPoolSize() + bulkhead.getBulkheadConfig().getQueueCapacity();
+            double rejections = meterRegistry.get("client.bulkhead.rejections").tag("name", "accountapi_getAccount").counter().count();
+            log.info(
+                "{} callers against a hanging account service: {} rejected, held at most {} ms",
+                WORKERS,
+                rejections,
+                TimeUnit.NANOSECONDS.toMillis(elapsed.get(WORKERS - 1))
+            );
+            assertThat(rejections).isEqualTo(WORKERS - capacity);
+            // The rejected callers are released at once, the others when the call times out
+            assertThat(elapsed.get(WORKERS - capacity - 1)).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+            assertThat(elapsed.get(WORKERS - 1)).isLessThan(TimeUnit.MILLISECONDS.toNanos(2000));
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            Gauge openState = meterRegistry
+                .get("resilience4j.circuitbreaker.state")
+                .tags("name", "accountapi_getAccount", "state", "open")
+                .gauge();
+            assertThat(openState.value()).isEqualTo(1);
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> cachingAccountProxy.getAccount(399L))
+                .isInstanceOf(AccountServiceUnavailableException.class)
+                .hasCauseInstanceOf(CallNotPermittedException.class);
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            hanging.countDown();
+            workers.shutdown();
+            // Let the hanging calls end, so that they do not leak into the next tests
+            while (inDispatch.get() > 0 || bulkhead.getMetrics().getQueueDepth() > 0) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            circuitBreaker.reset();
+        }
+    }
+
+    /**
+     * Measures the per-call overhead of Feign and Jackson, as the difference between calls through the proxy and bare
+     * calls on the same pooled OkHttp client, against a stand-in answering at once.
+     */
+    @Test
+    void perCallOverhead() throws IOException {
+        measure(this::getAccountWithOkHttp, WARMUP_CALLS);
+        measure(accountProxy::getAccount, WARMUP_CALLS);
+        List<Long> bare = measure(this::getAccountWithOkHttp, MEASURED_CALLS);
+        List<Long> proxied = measure(accountProxy::getAccount, MEASURED_CALLS);
+
+        log.info(
+            "{} calls to the account service stand-in: bare OkHttp p50 {} us, p99 {} us; AccountProxy p50 {} us, p99 {} us",
+            MEASURED_CALLS,
+            TimeUnit.NANOSECONDS.toMicros(bare.get(MEASURED_CALLS / 2)),
+            TimeUnit.NANOSECONDS.toMicros(bare.get(MEASURED_CALLS * 99 / 100)),
+            TimeUnit.NANOSECONDS.toMicros(proxied.get(MEASURED_CALLS / 2)),
+            TimeUnit.NANOSECONDS.toMicros(proxied.get(MEASURED_CALLS * 99 / 100))
+        );
+        assertThat(proxied.get(MEASURED_CALLS / 2)).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    private List<Long> measure(Call call, int calls) throws IOException {
+        List<Long> latencies = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.getAccount((long) i);
+            latencies.add(System.nanoTime() - start);
+        }
+        Collections.sort(latencies);
+        return latencies;
+    }
+
+    private Object getAccountWithOkHttp(Long id) throws IOException {
+        Request request = new Request.Builder()
+            .url(accountApi.url("/api/accounts/" + id))
+            .header("Authorization", "Bearer " + TOKEN)
+            .build();
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object getAccount(Long id) throws IOException;
+    }
+
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress bindAddress) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Answers with {@code 401 Unauthorized} the requests without the token of the user, as the account service does.
+     */
+    private static class AuthenticatedDispatcher extends Dispatcher {
+
+        private final Dispatcher delegate;
+
+        AuthenticatedDispatcher(Dispatcher delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (!("Bearer " + TOKEN).equals(request.getHeader("Authorization"))) {
+                return new MockResponse().setResponseCode(401);
+            }
+            return delegate.dispatch(request);
+        }
+    }
+
+    private static class AccountDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            if (path.startsWith("/api/accounts?id=")) {
+                String accounts = request
+                    .getRequestUrl()
+                    .queryParameterValues("id")
+                    .stream()
+                    .map(id -> String.format(ACCOUNT_JSON, Long.parseLong(id)))
+                    .collect(Collectors.joining(","));
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody("[" + accounts + "]");
+            }
+            if (path.startsWith("/api/accounts?clientId=")) {
+                return gzip("[" + String.format(ACCOUNT_JSON, 1) + "," + String.format(ACCOUNT_JSON, 2) + "]");
+            }
+            if (path.startsWith("/api/accounts/")) {
+                long id = Long.parseLong(path.substring("/api/accounts/".length()));
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(String.format(ACCOUNT_JSON, id));
+            }
+            return new MockResponse().setResponseCode(404);
+        }
+
+        private static MockResponse gzip(String json) {
+            Buffer compressed = new Buffer();
+            try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+                sink.writeUtf8(json);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(compressed);
+        }
+    }
+}